@@ -0,0 +1,53 @@
+package org.stanc;
+
+import org.stanc.engine.StopSignal;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * class AsyncSolve:
+ * - runs one task on an executor and gives its result as a CompletableFuture
+ * - the task gets a StopSignal raised when the future is cancelled, so a cancelled count stops at the next row
+ * - a task whose future is already done when it gets a thread is not run at all
+ */
+final class AsyncSolve {
+
+    private AsyncSolve() {
+    }
+
+    static <T> CompletableFuture<T> supply(Executor executor, Function<StopSignal, T> task) {
+        StopSignal stop = new StopSignal();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                stop.stop();
+            }
+        });
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.apply(stop));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // RejectedExecutionException, most of the time: the executor is shut down
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * The exception a task threw, without the CompletionException the dependent stages wrap it in.
+     */
+    static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
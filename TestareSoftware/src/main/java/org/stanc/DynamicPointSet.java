@@ -0,0 +1,143 @@
+package org.stanc;
+
+import org.stanc.engine.DenseCounter;
+import org.stanc.engine.HashCounter;
+import org.stanc.engine.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * class DynamicPointSet:
+ * - a point set that changes a few points at a time, answering the subproblem question without recounting every pair
+ * - the number of pairs of every (|dx|, |dy|) key is kept up to date: adding or removing a point changes the counts
+ * of its pairs with the other points only, O(n)
+ * - the number of keys with at least 3 pairs is kept too, so hasTriple() is O(1)
+ * - counts are kept in a dense array when the coordinate range of the limits allows it, in a LongIntHashMap otherwise;
+ * the choice is made once, from the limits: unlike the engines planned per subproblem by PlanningCounter, the counts
+ * live across updates, so the points seen so far can't pick the storage
+ * - not thread safe
+ */
+public final class DynamicPointSet {
+
+    private final ProblemLimits limits;
+    private final int width;
+    private final int[] denseCounts;
+    private final LongIntHashMap hashCounts;
+
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private int size;
+    private int keysWithTriple;
+
+    public DynamicPointSet() {
+        this(ProblemLimits.DEFAULT);
+    }
+
+    public DynamicPointSet(ProblemLimits limits) {
+        this.limits = limits;
+        if (limits.maxDelta() <= DenseCounter.MAX_DELTA) {
+            width = (int) limits.maxDelta() + 1;
+            denseCounts = new int[width * width];
+            hashCounts = null;
+        } else {
+            width = 0;
+            denseCounts = null;
+            hashCounts = new LongIntHashMap();
+        }
+    }
+
+    /**
+     * Adds a point, which may be equal to a point already there. Coordinates and the number of points are checked
+     * against the limits, with the messages of subproblem number 0.
+     */
+    public void addPoint(int x, int y) {
+        if (!limits.isValidCoordinate(x) || !limits.isValidCoordinate(y)) {
+            throw new RuntimeException(limits.coordinatesMessage(0, size));
+        }
+        if (size == limits.getMaxPoints()) {
+            throw new RuntimeException(limits.pointsMessage(0));
+        }
+        for (int i = 0; i < size; i++) {
+            if (adjust(x, y, xs[i], ys[i], 1) == 3) {
+                keysWithTriple++;
+            }
+        }
+        if (size == xs.length) {
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, xs.length * 2L);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Removes one point equal to (x, y). Returns false if there is none.
+     */
+    public boolean removePoint(int x, int y) {
+        int index = -1;
+        for (int i = size - 1; i >= 0; i--) {
+            if (xs[i] == x && ys[i] == y) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return false;
+        }
+        size--;
+        xs[index] = xs[size];
+        ys[index] = ys[size];
+        for (int i = 0; i < size; i++) {
+            if (adjust(x, y, xs[i], ys[i], -1) == 2) {
+                keysWithTriple--;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * True if some (|dx|, |dy|) key is shared by at least 3 pairs of the current points.
+     */
+    public boolean hasTriple() {
+        return keysWithTriple > 0;
+    }
+
+    /**
+     * The "TRUE" / "FALSE" answer Problem.solve() gives for the current points, which should be a valid subproblem.
+     */
+    public String solve() {
+        if (!limits.isValidPointsCount(size)) {
+            throw new RuntimeException(limits.pointsMessage(0));
+        }
+        return hasTriple() ? "TRUE" : "FALSE";
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A copy of the current points.
+     */
+    public PointSet toPointSet() {
+        return new PointSet(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+    }
+
+    /**
+     * Adds delta to the count of the key of the pair and returns the new count.
+     */
+    private int adjust(int x1, int y1, int x2, int y2, int delta) {
+        if (denseCounts != null) {
+            int key = Math.abs(x1 - x2) * width + Math.abs(y1 - y2);
+            return denseCounts[key] += delta;
+        }
+        long key = HashCounter.key(x1, y1, x2, y2);
+        int count = hashCounts.addTo(key, delta);
+        if (count == 0) {
+            hashCounts.remove(key);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,107 @@
+package org.stanc;
+
+import org.stanc.engine.Engine;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.StopSignal;
+import org.stanc.metrics.SolverMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * class ParallelSolveTask:
+ * - solves the subproblems of a validated batch on a fork join pool and returns the answers in input order
+ * - the cost of a subproblem is its number of pairs n(n-1)/2; subproblems are sorted by decreasing cost and packed
+ * into chunks of about totalCost / (4 * parallelism), so a huge subproblem is a chunk of its own while many tiny ones
+ * share a chunk
+ * - the chunks are forked heaviest first, so the big ones start early instead of serializing at the end
+ */
+@SuppressWarnings("serial") // forked, never serialized
+final class ParallelSolveTask extends RecursiveTask<boolean[]> {
+
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ProblemBatch batch;
+    private final ResultCache resultCache;
+    private final SolverMetrics metrics;
+    private final Engine wideEngine;
+    private final int parallelism;
+
+    /**
+     * @param resultCache the cache to go through, null for none
+     * @param metrics     the metrics to record in, null for none
+     */
+    ParallelSolveTask(ProblemBatch batch, ResultCache resultCache, SolverMetrics metrics, Engine wideEngine,
+                      int parallelism) {
+        this.batch = batch;
+        this.resultCache = resultCache;
+        this.metrics = metrics;
+        this.wideEngine = wideEngine;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    @Override
+    protected boolean[] compute() {
+        int count = batch.size();
+        boolean[] answers = new boolean[count];
+
+        Integer[] order = new Integer[count];
+        long totalCost = 0;
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            totalCost += cost(i);
+        }
+        Arrays.sort(order, Comparator.comparingLong(this::cost).reversed());
+
+        long target = Math.max(1, totalCost / ((long) parallelism * CHUNKS_PER_THREAD));
+        List<Chunk> chunks = new ArrayList<>();
+        int start = 0;
+        long chunkCost = 0;
+        for (int k = 0; k < count; k++) {
+            chunkCost += cost(order[k]);
+            if (chunkCost >= target || k == count - 1) {
+                chunks.add(new Chunk(order, start, k + 1, answers));
+                start = k + 1;
+                chunkCost = 0;
+            }
+        }
+
+        invokeAll(chunks);
+        return answers;
+    }
+
+    private long cost(int subProblemIndex) {
+        long n = batch.pointCount(subProblemIndex);
+        return n * (n - 1) / 2 + 1;
+    }
+
+    @SuppressWarnings("serial")
+    private final class Chunk extends RecursiveAction {
+
+        private final Integer[] order;
+        private final int from;
+        private final int to;
+        private final boolean[] answers;
+
+        Chunk(Integer[] order, int from, int to, boolean[] answers) {
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.answers = answers;
+        }
+
+        @Override
+        protected void compute() {
+            PairCounter counter = Workspace.forCurrentThread().counterFor(batch.getLimits(), wideEngine);
+            for (int k = from; k < to; k++) {
+                int index = order[k];
+                answers[index] = Problem.count(index, batch.xs(), batch.ys(), batch.from(index), batch.to(index), counter,
+                        resultCache, metrics, StopSignal.NONE);
+            }
+        }
+    }
+}
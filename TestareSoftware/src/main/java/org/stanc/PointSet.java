@@ -0,0 +1,81 @@
+package org.stanc;
+
+import java.util.List;
+
+/**
+ * class PointSet:
+ * - the points of one subproblem as two int columns: the points with indexes [from, to) of xs and ys
+ * - a PointSet of a ProblemBatch is a view over the batch columns, nothing is copied
+ * - the arrays are shared, not copied, so they should not be changed once the PointSet is built
+ */
+public final class PointSet {
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int from;
+    private final int to;
+
+    public PointSet(int[] xs, int[] ys) {
+        this(xs, ys, 0, xs.length);
+    }
+
+    PointSet(int[] xs, int[] ys, int from, int to) {
+        if (xs.length != ys.length) {
+            throw new IllegalArgumentException("xs and ys should have the same length: " + xs.length + " != " + ys.length);
+        }
+        this.xs = xs;
+        this.ys = ys;
+        this.from = from;
+        this.to = to;
+    }
+
+    public static PointSet of(List<Point> points) {
+        int[] xs = new int[points.size()];
+        int[] ys = new int[points.size()];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = points.get(i).getX();
+            ys[i] = points.get(i).getY();
+        }
+        return new PointSet(xs, ys);
+    }
+
+    public int size() {
+        return to - from;
+    }
+
+    public int getX(int i) {
+        return xs[from + i];
+    }
+
+    public int getY(int i) {
+        return ys[from + i];
+    }
+
+    int[] xs() {
+        return xs;
+    }
+
+    int[] ys() {
+        return ys;
+    }
+
+    int from() {
+        return from;
+    }
+
+    int to() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder display = new StringBuilder("[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                display.append(", ");
+            }
+            display.append('(').append(xs[i]).append(", ").append(ys[i]).append(')');
+        }
+        return display.append(']').toString();
+    }
+}
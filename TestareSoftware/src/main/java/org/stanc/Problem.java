@@ -1,16 +1,41 @@
 package org.stanc;
 
+import org.stanc.engine.Engine;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.SketchCounter;
+import org.stanc.engine.SpillCounter;
+import org.stanc.engine.StopSignal;
+import org.stanc.engine.ThresholdCounter;
+import org.stanc.engine.ThresholdQuery;
+import org.stanc.engine.ThresholdResult;
+import org.stanc.engine.TiledPairCounter;
+import org.stanc.metrics.SolverMetrics;
+import org.stanc.metrics.ValidationFailure;
+
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * class Problem:
  * - data is a list of list of points: {l1, l2, l3 ..., lt} where t is an integer between 1 and 5
  * - data contains list l = {p1, p2 ..., pn} where n is an integer between 1 and 40
  * - we won't store the integers T and N1..Nt, since we can get that information calling ArrayList::size()
+ * - the bounds above are the ProblemLimits.DEFAULT ones; other limits can be given to the constructor
+ * - the data can also be given in columnar form, as a ProblemBatch validated when it is built
+ * - or not given at all: processor() solves the subproblems of a Flow.Publisher as they arrive
  */
 public class Problem {
 
     private List<List<Point>> subProblems;
+    private ProblemBatch batch;
+    private ProblemLimits limits;
+    private ResultCache resultCache;
+    private SolverMetrics metrics;
+    private Engine wideEngine = Engine.HASH;
     public static final String INVALID_SUBPROBLEMS_BOUNDS = "The given subproblems array is either null or is outside " +
             "of bounds [1, 5]";
     public static final String INVALID_POINTS_BOUNDS = "The given points array for subproblem number %d is either null " +
@@ -19,56 +44,447 @@ public class Problem {
             "number %d are outside of bounds [0, 50]";
 
     public Problem(List<List<Point>> subProblems) {
+        this(subProblems, ProblemLimits.DEFAULT);
+    }
+
+    public Problem(List<List<Point>> subProblems, ProblemLimits limits) {
         this.subProblems = subProblems;
+        this.limits = Objects.requireNonNull(limits, "limits");
+    }
+
+    private Problem(ProblemBatch batch) {
+        this.batch = Objects.requireNonNull(batch, "batch");
+        this.limits = batch.getLimits();
+    }
+
+    /**
+     * A problem over columnar data, already validated against the limits of the batch.
+     * A factory and not a constructor: new Problem(null) must keep meaning a null list of subproblems.
+     */
+    public static Problem of(ProblemBatch batch) {
+        return new Problem(batch);
+    }
+
+    /**
+     * A processor solving the subproblems published to it, for the problems too big to build as a list first:
+     * see SolveProcessor.
+     */
+    public static SolveProcessor processor(ProblemLimits limits, Executor executor, int maxInFlight) {
+        return new SolveProcessor(limits, executor, maxInFlight);
+    }
+
+    public ProblemLimits getLimits() {
+        return limits;
+    }
+
+    public ResultCache getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Puts the cache in front of the counting of every subproblem, null to solve without a cache.
+     * The same cache can be shared by many problems and threads.
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Records what the solve methods do in the metrics, null (the default) to record nothing.
+     * The same metrics can be shared by many problems and threads.
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public Engine getWideEngine() {
+        return wideEngine;
+    }
+
+    /**
+     * The engine counting the subproblems whose coordinates spread too wide for a dense array: HASH (the default) or
+     * RADIX, an experimental engine measured slower than HASH, see RadixSortCounter. solveTiled() always hashes.
+     */
+    public void setWideEngine(Engine wideEngine) {
+        if (wideEngine != Engine.HASH && wideEngine != Engine.RADIX) {
+            throw new IllegalArgumentException("The wide engine should be HASH or RADIX, got " + wideEngine);
+        }
+        this.wideEngine = wideEngine;
     }
 
     public List<String> solve() {
+        return solveResults().toList();
+    }
 
-        if (subProblems == null || subProblems.size() < 1 || subProblems.size() > 5) {
-            throw new RuntimeException(INVALID_SUBPROBLEMS_BOUNDS);
+    /**
+     * Same answers and exceptions as solve(), as bits, see SolveResults.
+     */
+    public SolveResults solveResults() {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SolveResults results = batch != null
+                ? solveBatch(batch, Workspace.forCurrentThread().counterFor(limits, wideEngine))
+                : solveLists(false);
+        commit(event, "solve", results);
+        return results;
+    }
+
+    /**
+     * Like solve(), but a subproblem out of the limits gets an error result instead of throwing, and the other
+     * subproblems are still solved. Only a null list or a number of subproblems out of the limits throw, as in
+     * solve(), since there is no subproblem to attach the error to then.
+     */
+    public List<SubProblemResult> solveEach() {
+        return solveEachResults().toResultList();
+    }
+
+    /**
+     * Same answers and errors as solveEach(), as bits: the subproblems out of the limits are the invalid ones, see
+     * SolveResults.
+     */
+    public SolveResults solveEachResults() {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SolveResults results = batch != null
+                ? solveBatch(batch, Workspace.forCurrentThread().counterFor(limits, wideEngine))
+                : solveLists(true);
+        commit(event, "solveEach", results);
+        return results;
+    }
+
+    /**
+     * @param lenient true to record the subproblems out of the limits as errors, false to throw
+     */
+    private SolveResults solveLists(boolean lenient) {
+
+        if (subProblems == null || !limits.isValidSubProblemsCount(subProblems.size())) {
+            if (metrics != null) {
+                metrics.recordValidationFailure(ValidationFailure.SUBPROBLEMS_BOUNDS);
+            }
+            throw new RuntimeException(limits.subProblemsMessage());
+        }
+
+        SolveResults results = new SolveResults(subProblems.size());
+        Workspace workspace = Workspace.forCurrentThread();
+        PairCounter counter = workspace.counterFor(limits, wideEngine);
+
+        for (int i = 0; i < subProblems.size(); i++) {
+            if (lenient) {
+                SubProblemResult result = solveLeniently(subProblems.get(i), i, limits, workspace, counter, resultCache,
+                        metrics, StopSignal.NONE);
+                if (result.isError()) {
+                    results.setError(i, result);
+                } else {
+                    results.set(i, result.getAnswer());
+                }
+            } else {
+                results.set(i, solveOne(subProblems.get(i), i, workspace, counter, StopSignal.NONE));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * The answers of the query for every subproblem, each found in a single pass over its pairs, see ThresholdQuery.
+     * solve() is the query of(3): a subproblem is "TRUE" when its result reaches(3). Same exceptions as solve().
+     */
+    public List<ThresholdResult> solveThresholds(ThresholdQuery query) {
+        Objects.requireNonNull(query, "query");
+        ProblemBatch columns = toBatch();
+        ThresholdCounter counter = Workspace.forCurrentThread().thresholdCounterFor(limits);
+        List<ThresholdResult> results = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            results.add(counter.count(columns.xs(), columns.ys(), columns.from(i), columns.to(i), query));
         }
+        return results;
+    }
+
+    /**
+     * Same results and exceptions as solve(), but the subproblems are solved in parallel on the common pool.
+     */
+    public List<String> solveParallel() {
+        return solveParallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same results and exceptions as solve(), but the subproblems are solved in parallel on the given pool.
+     * Every subproblem is validated first, in order, so the first invalid one throws exactly as in solve().
+     * The work is then split by its O(n^2) pair cost, see ParallelSolveTask.
+     */
+    public List<String> solveParallel(ForkJoinPool pool) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+
+        ProblemBatch columns = toBatch();
+        SolveResults results = SolveResults.of(
+                pool.invoke(new ParallelSolveTask(columns, resultCache, metrics, wideEngine, pool.getParallelism())));
 
-        List<String> results = new ArrayList<>();
+        commit(event, "solveParallel", results);
+        return results.toList();
+    }
 
+    /**
+     * Same results and exceptions as solve(), but the pairs of every subproblem are split into tiles counted in
+     * parallel on the given pool, see TiledPairCounter. Meant for a few very large subproblems, where solveParallel
+     * would leave most threads idle.
+     */
+    public List<String> solveTiled(ForkJoinPool pool) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SolveResults results = solveBatch(toBatch(), new TiledPairCounter(pool, limits.maxDelta()));
+        commit(event, "solveTiled", results);
+        return results.toList();
+    }
+
+    /**
+     * Same results and exceptions as solve(), but the subproblems planned to a hash table whose pairs don't fit the
+     * memory budget are counted out of core, through temporary files in the directory (null for the default one), see SpillCounter.
+     * Meant for subproblems of millions of points, where the pair counts of the other solve methods run out of heap.
+     */
+    public List<String> solveSpilling(Path directory, long memoryBudget) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SolveResults results = solveBatch(toBatch(), new SpillCounter(directory, memoryBudget));
+        commit(event, "solveSpilling", results);
+        return results.toList();
+    }
+
+    /**
+     * Same results and exceptions as solve(), but the subproblems planned to a hash table whose pairs don't fit the
+     * memory budget are screened by a sketch of that size first, and only the keys it can't rule out are counted exactly, see SketchCounter.
+     * Meant for large subproblems with few triples, where the pair counts of solve() grow to every distinct pair.
+     */
+    public List<String> solveSketched(long memoryBudget) {
+        SolveEvent event = new SolveEvent();
+        event.begin();
+        SolveResults results = solveBatch(toBatch(), new SketchCounter(memoryBudget));
+        commit(event, "solveSketched", results);
+        return results.toList();
+    }
+
+    /**
+     * Same results and exceptions as solveResults(), computed on the given executor: the returned future completes
+     * with the results, or exceptionally with the exception solve() would throw.
+     * The subproblems are validated first, in one task, then every subproblem is counted in its own task.
+     * Cancelling the future cancels the tasks not started yet and stops the ones counting, see StopSignal.
+     */
+    public CompletableFuture<SolveResults> solveAsync(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        SolveEvent event = new SolveEvent();
+        event.begin();
+
+        CompletableFuture<SolveResults> result = new CompletableFuture<>();
+        List<CompletableFuture<?>> tasks = new CopyOnWriteArrayList<>();
+        result.whenComplete((results, error) -> {
+            if (result.isCancelled()) {
+                tasks.forEach(task -> task.cancel(false));
+            }
+        });
+
+        CompletableFuture<ProblemBatch> validation = AsyncSolve.supply(executor, stop -> toBatch());
+        tasks.add(validation);
+        validation.whenComplete((columns, error) -> {
+            if (error != null) {
+                result.completeExceptionally(AsyncSolve.unwrap(error));
+                return;
+            }
+            List<CompletableFuture<Boolean>> answers = new ArrayList<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                int index = i;
+                answers.add(AsyncSolve.supply(executor, stop -> count(index, columns.xs(), columns.ys(),
+                        columns.from(index), columns.to(index), Workspace.forCurrentThread().counterFor(limits, wideEngine),
+                        resultCache, metrics, stop)));
+            }
+            tasks.addAll(answers);
+            if (result.isCancelled()) {
+                answers.forEach(answer -> answer.cancel(false));
+            }
+            CompletableFuture.allOf(answers.toArray(new CompletableFuture<?>[0])).whenComplete((done, failure) -> {
+                if (failure != null) {
+                    result.completeExceptionally(AsyncSolve.unwrap(failure));
+                    return;
+                }
+                SolveResults results = new SolveResults(answers.size());
+                for (int i = 0; i < answers.size(); i++) {
+                    results.set(i, answers.get(i).join());
+                }
+                commit(event, "solveAsync", results);
+                result.complete(results);
+            });
+        });
+        return result;
+    }
+
+    /**
+     * One future per subproblem, each validating and counting its subproblem on the given executor, in any order.
+     * A future completes with the answer of its subproblem, or exceptionally with the exception solve() would throw
+     * for it. Cancelling one stops the counting of its subproblem only.
+     * A null list or a number of subproblems out of the limits throw right away, as in solve().
+     */
+    public List<CompletableFuture<Boolean>> solveEachAsync(Executor executor) {
+        Objects.requireNonNull(executor, "executor");
+        List<CompletableFuture<Boolean>> answers = new ArrayList<>();
+        if (batch != null) {
+            for (int i = 0; i < batch.size(); i++) {
+                int index = i;
+                answers.add(AsyncSolve.supply(executor, stop -> count(index, batch.xs(), batch.ys(), batch.from(index),
+                        batch.to(index), Workspace.forCurrentThread().counterFor(limits, wideEngine), resultCache, metrics, stop)));
+            }
+            return answers;
+        }
+
+        if (subProblems == null || !limits.isValidSubProblemsCount(subProblems.size())) {
+            if (metrics != null) {
+                metrics.recordValidationFailure(ValidationFailure.SUBPROBLEMS_BOUNDS);
+            }
+            throw new RuntimeException(limits.subProblemsMessage());
+        }
         for (int i = 0; i < subProblems.size(); i++) {
-            results.add(solveOne(subProblems.get(i), i));
+            int index = i;
+            List<Point> points = subProblems.get(i);
+            answers.add(AsyncSolve.supply(executor, stop -> {
+                Workspace workspace = Workspace.forCurrentThread();
+                return solveOne(points, index, workspace, workspace.counterFor(limits, wideEngine), stop);
+            }));
         }
+        return answers;
+    }
 
+    /**
+     * Ends the event and fills it only if it is going to be committed.
+     */
+    private void commit(SolveEvent event, String method, SolveResults results) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.subProblems = results.size();
+            if (batch != null) {
+                event.points = batch.xs().length;
+            } else {
+                for (List<Point> points : subProblems) {
+                    event.points += points == null ? 0 : points.size();
+                }
+            }
+            event.trueAnswers = results.countTrue();
+            event.commit();
+        }
+    }
+
+    /**
+     * The columnar form of the data, validated: the batch given to the constructor or a copy of the lists.
+     */
+    private ProblemBatch toBatch() {
+        if (batch != null) {
+            return batch;
+        }
+        if (metrics == null) {
+            return ProblemBatch.of(subProblems, limits);
+        }
+        long start = System.nanoTime();
+        try {
+            return ProblemBatch.of(subProblems, limits, metrics);
+        } finally {
+            metrics.recordValidation(System.nanoTime() - start);
+        }
+    }
+
+    private SolveResults solveBatch(ProblemBatch batch, PairCounter counter) {
+        int[] xs = batch.xs();
+        int[] ys = batch.ys();
+        SolveResults results = new SolveResults(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            results.set(i, count(i, xs, ys, batch.from(i), batch.to(i), counter, resultCache, metrics, StopSignal.NONE));
+        }
         return results;
     }
 
-    private String solveOne(List<Point> points, int subProblemIndex) {
+    private boolean solveOne(List<Point> points, int subProblemIndex, Workspace workspace, PairCounter counter,
+                             StopSignal stop) {
 
-        if (points == null || points.size() < 1 || points.size() > 40) {
-            throw new RuntimeException(String.format(INVALID_POINTS_BOUNDS, subProblemIndex));
+        long start = metrics == null ? 0 : System.nanoTime();
+        ProblemBatch.validatePointsCount(points, subProblemIndex, limits, metrics);
+
+        int n = points.size();
+        workspace.ensureCapacity(n);
+        ProblemBatch.copyValidated(points, subProblemIndex, limits, workspace.xs, workspace.ys, 0, metrics);
+        if (metrics != null) {
+            metrics.recordValidation(System.nanoTime() - start);
         }
 
-        for (int i = 0; i < points.size(); i++) {
-            if (points.get(i).getX() < 0 || points.get(i).getX() > 50 || points.get(i).getY() < 0 || points.get(i).getY() > 50) {
-                throw new RuntimeException(String.format(INVALID_COORDINATES_BOUNDS, subProblemIndex, i));
+        return count(subProblemIndex, workspace.xs, workspace.ys, 0, n, counter, resultCache, metrics, stop);
+    }
+
+    /**
+     * Same as solveOne, with the validation failures returned as error results instead of thrown.
+     * Static, for the solvers that have no Problem: see SolveProcessor.
+     */
+    static SubProblemResult solveLeniently(List<Point> points, int subProblemIndex, ProblemLimits limits,
+                                           Workspace workspace, PairCounter counter, ResultCache resultCache,
+                                           SolverMetrics metrics, StopSignal stop) {
+
+        long start = metrics == null ? 0 : System.nanoTime();
+        if (points == null || !limits.isValidPointsCount(points.size())) {
+            if (metrics != null) {
+                metrics.recordValidationFailure(ValidationFailure.POINTS_BOUNDS);
             }
+            return SubProblemResult.invalidPointsCount(subProblemIndex, limits);
         }
 
-        Map<LineData, Integer> lineDataCounter = new HashMap<>();
         int n = points.size();
-        for (int i = 0; i < n - 1; i++) {
-            for (int j = i + 1; j < n; j++) {
-                Point p1 = points.get(i);
-                Point p2 = points.get(j);
-                LineData ld = new LineData(Math.abs(p1.getX() - p2.getX()), Math.abs(p1.getY() - p2.getY()));
-                if (lineDataCounter.containsKey(ld)) {
-                    Integer oldVal = lineDataCounter.get(ld);
-                    if (oldVal == 2) {
-                        return "TRUE";
-                    }
-                    lineDataCounter.put(ld, oldVal + 1);
-                } else {
-                    lineDataCounter.put(ld, 1);
-                }
+        workspace.ensureCapacity(n);
+        int invalidPoint = ProblemBatch.copyChecked(points, limits, workspace.xs, workspace.ys, 0);
+        if (invalidPoint >= 0) {
+            if (metrics != null) {
+                metrics.recordValidationFailure(ValidationFailure.COORDINATES_BOUNDS);
             }
+            return SubProblemResult.invalidCoordinates(subProblemIndex, invalidPoint, limits);
         }
+        if (metrics != null) {
+            metrics.recordValidation(System.nanoTime() - start);
+        }
+
+        return SubProblemResult.of(count(subProblemIndex, workspace.xs, workspace.ys, 0, n, counter, resultCache, metrics,
+                stop));
+    }
 
-        return "FALSE";
+    /**
+     * The answer for the points [from, to) of subproblem number index, through the cache if not null, recorded in the
+     * metrics if not null and in a SubProblemEvent if JFR records it. Throws a CancellationException, and records
+     * nothing, once stop is raised.
+     */
+    static boolean count(int index, int[] xs, int[] ys, int from, int to, PairCounter counter, ResultCache resultCache,
+                         SolverMetrics metrics, StopSignal stop) {
+        SubProblemEvent event = new SubProblemEvent();
+        if (metrics == null && !event.isEnabled()) {
+            return resultCache == null
+                    ? counter.hasTriple(xs, ys, from, to, stop)
+                    : resultCache.hasTriple(xs, ys, from, to, counter, stop);
+        }
+        long pairs = counter.pairsExamined();
+        long keys = counter.keysCounted();
+        long start = System.nanoTime();
+        event.begin();
+        boolean answer = resultCache == null
+                ? counter.hasTriple(xs, ys, from, to, stop)
+                : resultCache.hasTriple(xs, ys, from, to, counter, stop);
+        event.end();
+        if (metrics != null) {
+            metrics.recordSubProblem(to - from, answer, counter.pairsExamined() - pairs, System.nanoTime() - start);
+        }
+        if (event.shouldCommit()) {
+            event.index = index;
+            event.points = to - from;
+            event.result = answer;
+            event.pairsVisited = counter.pairsExamined() - pairs;
+            event.distinctKeys = counter.keysCounted() - keys;
+            event.commit();
+        }
+        return answer;
     }
 
     //@Override
@@ -97,30 +513,6 @@ public class Problem {
     }
      */
 
-    private class LineData {
-
-        int dx;
-        int dy;
-
-        public LineData(int dx, int dy) {
-            this.dx = dx;
-            this.dy = dy;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            LineData lineData = (LineData) o;
-            return dx == lineData.dx && dy == lineData.dy;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(dx, dy);
-        }
-    }
-
 //    public static void main(String[] args) {
 //
 //        // SP 1
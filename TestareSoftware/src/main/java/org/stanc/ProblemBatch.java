@@ -0,0 +1,189 @@
+package org.stanc;
+
+import org.stanc.metrics.SolverMetrics;
+import org.stanc.metrics.ValidationFailure;
+
+import java.util.List;
+
+/**
+ * class ProblemBatch:
+ * - all the T subproblems of a batch in columnar form: the coordinates of every point in xs and ys, and CSR style
+ * offsets: subproblem s holds the points with indexes [offsets[s], offsets[s + 1])
+ * - the bounds are validated once, when the batch is built, with the same messages (and in the same order) as
+ * Problem.solve(): first T, then for every subproblem N and the coordinates of its points
+ * - the arrays are shared, not copied, so they should not be changed once the batch is built
+ */
+public final class ProblemBatch {
+
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] offsets;
+    private final ProblemLimits limits;
+
+    public ProblemBatch(int[] xs, int[] ys, int[] offsets) {
+        this(xs, ys, offsets, ProblemLimits.DEFAULT);
+    }
+
+    public ProblemBatch(int[] xs, int[] ys, int[] offsets, ProblemLimits limits) {
+        validate(xs, ys, offsets, limits);
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
+        this.limits = limits;
+    }
+
+    /**
+     * For columns already validated, see of().
+     */
+    private ProblemBatch(ProblemLimits limits, int[] xs, int[] ys, int[] offsets) {
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
+        this.limits = limits;
+    }
+
+    private static void validate(int[] xs, int[] ys, int[] offsets, ProblemLimits limits) {
+        if (xs == null || ys == null || xs.length != ys.length) {
+            throw new IllegalArgumentException("xs and ys should be arrays of the same length");
+        }
+        if (offsets == null || offsets.length == 0 || !limits.isValidSubProblemsCount(offsets.length - 1)) {
+            throw new RuntimeException(limits.subProblemsMessage());
+        }
+        if (offsets[0] != 0 || offsets[offsets.length - 1] != xs.length) {
+            throw new IllegalArgumentException("offsets should start at 0 and end at the number of points " + xs.length);
+        }
+        for (int s = 0; s < offsets.length - 1; s++) {
+            int from = offsets[s];
+            int to = offsets[s + 1];
+            if (to < from) {
+                throw new IllegalArgumentException("offsets should not decrease, subproblem " + s);
+            }
+            if (!limits.isValidPointsCount(to - from)) {
+                throw new RuntimeException(limits.pointsMessage(s));
+            }
+            for (int i = from; i < to; i++) {
+                if (!limits.isValidCoordinate(xs[i]) || !limits.isValidCoordinate(ys[i])) {
+                    throw new RuntimeException(limits.coordinatesMessage(s, i - from));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the points of the subproblems into a batch, validating them like Problem.solve() does.
+     */
+    public static ProblemBatch of(List<List<Point>> subProblems, ProblemLimits limits) {
+        return of(subProblems, limits, null);
+    }
+
+    /**
+     * Same as of(subProblems, limits), counting a validation failure in the metrics (if not null) before throwing.
+     */
+    static ProblemBatch of(List<List<Point>> subProblems, ProblemLimits limits, SolverMetrics metrics) {
+        if (subProblems == null || !limits.isValidSubProblemsCount(subProblems.size())) {
+            throw invalid(ValidationFailure.SUBPROBLEMS_BOUNDS, limits.subProblemsMessage(), metrics);
+        }
+        int count = subProblems.size();
+        // sized from the subproblems with a valid N, so the columns are exact when the batch is valid
+        long capacity = 0;
+        for (List<Point> points : subProblems) {
+            if (points != null && limits.isValidPointsCount(points.size())) {
+                capacity = Math.min(Integer.MAX_VALUE - 8, capacity + points.size());
+            }
+        }
+        int[] offsets = new int[count + 1];
+        int[] xs = new int[(int) capacity];
+        int[] ys = new int[(int) capacity];
+        long total = 0;
+        // N then the coordinates of every subproblem in turn, so the first invalid one throws as in solve()
+        for (int s = 0; s < count; s++) {
+            List<Point> points = subProblems.get(s);
+            validatePointsCount(points, s, limits, metrics);
+            if (total + points.size() > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many points for a single batch: " + (total + points.size()));
+            }
+            copyValidated(points, s, limits, xs, ys, (int) total, metrics);
+            total += points.size();
+            offsets[s + 1] = (int) total;
+        }
+        return new ProblemBatch(limits, xs, ys, offsets);
+    }
+
+    /**
+     * Throws the points message of the limits if the subproblem is null or its number of points is out of bounds.
+     */
+    static void validatePointsCount(List<Point> points, int subProblemIndex, ProblemLimits limits, SolverMetrics metrics) {
+        if (points == null || !limits.isValidPointsCount(points.size())) {
+            throw invalid(ValidationFailure.POINTS_BOUNDS, limits.pointsMessage(subProblemIndex), metrics);
+        }
+    }
+
+    /**
+     * Checks the coordinates of every point and copies them into xs and ys, starting at offset.
+     */
+    static void copyValidated(List<Point> points, int subProblemIndex, ProblemLimits limits, int[] xs, int[] ys, int offset,
+                              SolverMetrics metrics) {
+        int invalidPoint = copyChecked(points, limits, xs, ys, offset);
+        if (invalidPoint >= 0) {
+            throw invalid(ValidationFailure.COORDINATES_BOUNDS, limits.coordinatesMessage(subProblemIndex, invalidPoint), metrics);
+        }
+    }
+
+    /**
+     * Copies the coordinates of the points into xs and ys, starting at offset, up to the first point out of bounds.
+     * Returns the index of that point, -1 if they are all valid.
+     */
+    static int copyChecked(List<Point> points, ProblemLimits limits, int[] xs, int[] ys, int offset) {
+        int n = points.size();
+        for (int i = 0; i < n; i++) {
+            Point p = points.get(i);
+            int x = p.getX();
+            int y = p.getY();
+            if (!limits.isValidCoordinate(x) || !limits.isValidCoordinate(y)) {
+                return i;
+            }
+            xs[offset + i] = x;
+            ys[offset + i] = y;
+        }
+        return -1;
+    }
+
+    private static RuntimeException invalid(ValidationFailure failure, String message, SolverMetrics metrics) {
+        if (metrics != null) {
+            metrics.recordValidationFailure(failure);
+        }
+        return new RuntimeException(message);
+    }
+
+    public int size() {
+        return offsets.length - 1;
+    }
+
+    public int pointCount(int subProblemIndex) {
+        return offsets[subProblemIndex + 1] - offsets[subProblemIndex];
+    }
+
+    public PointSet get(int subProblemIndex) {
+        return new PointSet(xs, ys, offsets[subProblemIndex], offsets[subProblemIndex + 1]);
+    }
+
+    public ProblemLimits getLimits() {
+        return limits;
+    }
+
+    int[] xs() {
+        return xs;
+    }
+
+    int[] ys() {
+        return ys;
+    }
+
+    int from(int subProblemIndex) {
+        return offsets[subProblemIndex];
+    }
+
+    int to(int subProblemIndex) {
+        return offsets[subProblemIndex + 1];
+    }
+}
@@ -0,0 +1,118 @@
+package org.stanc;
+
+/**
+ * class ProblemLimits:
+ * - holds the bounds a Problem validates against: number of subproblems T, number of points N of a subproblem and
+ * the range of the point coordinates
+ * - DEFAULT is the original statement of the problem: T in [1, 5], N in [1, 40], coordinates in [0, 50]; its
+ * messages are exactly the Problem.INVALID_*_BOUNDS ones
+ */
+public final class ProblemLimits {
+
+    public static final ProblemLimits DEFAULT = new ProblemLimits(1, 5, 1, 40, 0, 50);
+
+    private final int minSubProblems;
+    private final int maxSubProblems;
+    private final int minPoints;
+    private final int maxPoints;
+    private final int minCoordinate;
+    private final int maxCoordinate;
+
+    private final String subProblemsMessage;
+    private final String pointsTemplate;
+    private final String coordinatesTemplate;
+
+    public ProblemLimits(int minSubProblems, int maxSubProblems, int minPoints, int maxPoints,
+                         int minCoordinate, int maxCoordinate) {
+        if (minSubProblems < 0 || minSubProblems > maxSubProblems) {
+            throw new IllegalArgumentException("Invalid subproblems bounds [" + minSubProblems + ", " + maxSubProblems + "]");
+        }
+        if (minPoints < 0 || minPoints > maxPoints) {
+            throw new IllegalArgumentException("Invalid points bounds [" + minPoints + ", " + maxPoints + "]");
+        }
+        if (minCoordinate > maxCoordinate) {
+            throw new IllegalArgumentException("Invalid coordinates bounds [" + minCoordinate + ", " + maxCoordinate + "]");
+        }
+        this.minSubProblems = minSubProblems;
+        this.maxSubProblems = maxSubProblems;
+        this.minPoints = minPoints;
+        this.maxPoints = maxPoints;
+        this.minCoordinate = minCoordinate;
+        this.maxCoordinate = maxCoordinate;
+
+        this.subProblemsMessage = "The given subproblems array is either null or is outside of bounds [" +
+                minSubProblems + ", " + maxSubProblems + "]";
+        this.pointsTemplate = "The given points array for subproblem number %d is either null or is outside of bounds [" +
+                minPoints + ", " + maxPoints + "]";
+        this.coordinatesTemplate = "The given points coordinates for subproblem number %d, point number %d are outside " +
+                "of bounds [" + minCoordinate + ", " + maxCoordinate + "]";
+    }
+
+    /**
+     * Limits for big point sets: any number of subproblems and points, any int coordinates.
+     */
+    public static ProblemLimits unbounded() {
+        return new ProblemLimits(1, Integer.MAX_VALUE, 1, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    public int getMinSubProblems() {
+        return minSubProblems;
+    }
+
+    public int getMaxSubProblems() {
+        return maxSubProblems;
+    }
+
+    public int getMinPoints() {
+        return minPoints;
+    }
+
+    public int getMaxPoints() {
+        return maxPoints;
+    }
+
+    public int getMinCoordinate() {
+        return minCoordinate;
+    }
+
+    public int getMaxCoordinate() {
+        return maxCoordinate;
+    }
+
+    /**
+     * The biggest |dx| or |dy| two valid points can have. It does not fit an int for wide coordinate ranges.
+     */
+    public long maxDelta() {
+        return (long) maxCoordinate - minCoordinate;
+    }
+
+    public boolean isValidSubProblemsCount(int count) {
+        return count >= minSubProblems && count <= maxSubProblems;
+    }
+
+    public boolean isValidPointsCount(int count) {
+        return count >= minPoints && count <= maxPoints;
+    }
+
+    public boolean isValidCoordinate(int value) {
+        return value >= minCoordinate && value <= maxCoordinate;
+    }
+
+    public String subProblemsMessage() {
+        return subProblemsMessage;
+    }
+
+    public String pointsMessage(int subProblemIndex) {
+        return String.format(pointsTemplate, subProblemIndex);
+    }
+
+    public String coordinatesMessage(int subProblemIndex, int pointIndex) {
+        return String.format(coordinatesTemplate, subProblemIndex, pointIndex);
+    }
+
+    @Override
+    public String toString() {
+        return "T in [" + minSubProblems + ", " + maxSubProblems + "], N in [" + minPoints + ", " + maxPoints +
+                "], coordinates in [" + minCoordinate + ", " + maxCoordinate + "]";
+    }
+}
@@ -0,0 +1,180 @@
+package org.stanc;
+
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.StopSignal;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * class ResultCache:
+ * - an optional, bounded cache of subproblem answers, see Problem.setResultCache
+ * - the answer only depends on the multiset of (|dx|, |dy|) keys, which does not change when the points are
+ * reordered, translated, mirrored along an axis or when x and y are swapped; a subproblem is therefore keyed by its
+ * canonical form: of the 8 mirror / swap variants, translated to a minimum of 0 and sorted, the smallest one
+ * - entries are evicted least recently used first, once the points stored in all the keys exceed maxPoints
+ * - subproblems with fewer than minPoints points are solved directly, canonicalizing them costs more than solving;
+ * DEFAULT_MIN_POINTS is below the N <= 40 of ProblemLimits.DEFAULT, so the default cache applies to default problems
+ * - thread safe; hit, miss and eviction counts are kept so the cache can be sized
+ */
+public final class ResultCache {
+
+    public static final int DEFAULT_MIN_POINTS = 16;
+
+    private final long maxPoints;
+    private final int minPoints;
+    private final LinkedHashMap<CanonicalKey, Boolean> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long storedPoints;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ResultCache(long maxPoints) {
+        this(maxPoints, DEFAULT_MIN_POINTS);
+    }
+
+    public ResultCache(long maxPoints, int minPoints) {
+        if (maxPoints < 1) {
+            throw new IllegalArgumentException("maxPoints should be positive, got " + maxPoints);
+        }
+        this.maxPoints = maxPoints;
+        this.minPoints = Math.max(0, minPoints);
+    }
+
+    /**
+     * The answer for the points [from, to) of xs and ys: cached, or computed by the counter and then cached.
+     */
+    boolean hasTriple(int[] xs, int[] ys, int from, int to, PairCounter counter, StopSignal stop) {
+        if (to - from < minPoints) {
+            return counter.hasTriple(xs, ys, from, to, stop);
+        }
+        CanonicalKey key = new CanonicalKey(canonicalForm(xs, ys, from, to));
+        synchronized (this) {
+            Boolean cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        boolean answer = counter.hasTriple(xs, ys, from, to, stop);
+        put(key, answer);
+        return answer;
+    }
+
+    /**
+     * The cached answer for the points, null if they are not cached. Does not change the statistics.
+     */
+    public synchronized Boolean peek(PointSet points) {
+        return entries.get(new CanonicalKey(canonicalForm(points.xs(), points.ys(), points.from(), points.to())));
+    }
+
+    private synchronized void put(CanonicalKey key, boolean answer) {
+        if (entries.put(key, answer) == null) {
+            storedPoints += key.points.length;
+        }
+        Iterator<Map.Entry<CanonicalKey, Boolean>> eldest = entries.entrySet().iterator();
+        while (storedPoints > maxPoints && eldest.hasNext()) {
+            storedPoints -= eldest.next().getKey().points.length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * The number of points stored in the keys of the cache, bounded by maxPoints.
+     */
+    public synchronized long getStoredPoints() {
+        return storedPoints;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        storedPoints = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResultCache{entries=" + entries.size() + ", points=" + storedPoints + "/" + maxPoints + ", hits=" + hits +
+                ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    /**
+     * The smallest (in lexicographic order) of the sorted, translated point arrays of the 8 mirror / swap variants.
+     * Every point is packed into a long: x - minX in the high 32 bits, y - minY in the low ones.
+     */
+    static long[] canonicalForm(int[] xs, int[] ys, int from, int to) {
+        int n = to - from;
+        long[] best = null;
+        long[] candidate = new long[n];
+        for (int variant = 0; variant < 8; variant++) {
+            boolean swap = (variant & 4) != 0;
+            long signA = (variant & 1) != 0 ? -1 : 1;
+            long signB = (variant & 2) != 0 ? -1 : 1;
+            long minA = Long.MAX_VALUE;
+            long minB = Long.MAX_VALUE;
+            for (int i = from; i < to; i++) {
+                minA = Math.min(minA, signA * (swap ? ys[i] : xs[i]));
+                minB = Math.min(minB, signB * (swap ? xs[i] : ys[i]));
+            }
+            for (int i = from; i < to; i++) {
+                long a = signA * (swap ? ys[i] : xs[i]) - minA;
+                long b = signB * (swap ? xs[i] : ys[i]) - minB;
+                candidate[i - from] = a << 32 | b;
+            }
+            Arrays.sort(candidate);
+            if (best == null || Arrays.compare(candidate, best) < 0) {
+                long[] previous = best;
+                best = candidate;
+                candidate = previous == null ? new long[n] : previous;
+            }
+        }
+        return best;
+    }
+
+    private static final class CanonicalKey {
+
+        private final long[] points;
+        private final int hash;
+
+        CanonicalKey(long[] points) {
+            this.points = points;
+            this.hash = Arrays.hashCode(points);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return hash == ((CanonicalKey) o).hash && Arrays.equals(points, ((CanonicalKey) o).points);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.stanc;
+
+import java.io.IOException;
+
+/**
+ * Receives the "TRUE" / "FALSE" result of every subproblem, in input order, as soon as it is solved.
+ */
+@FunctionalInterface
+public interface ResultListener {
+
+    void onResult(int subProblemIndex, String result) throws IOException;
+}
@@ -0,0 +1,41 @@
+package org.stanc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * class SolveEvent:
+ * - a JFR event around a call of one of the Problem methods solving a whole batch into SolveResults (solve(),
+ * solveEach(), solveParallel(), solveAsync() and the like), validation included; method names the call
+ * - the SubProblemEvents of the call happen inside it, on the same thread for the methods counting on
+ * the calling thread (solve(), solveTiled(), solveSpilling(), solveSketched()); solveAsync()
+ * commits it from the thread completing the last subproblem
+ * - enabled with a 10 ms threshold by default, src/main/resources/solver.jfc holds the settings meant for
+ * production
+ */
+@Name("org.stanc.Solve")
+@Label("Solve")
+@Category({"Stanc", "Solver"})
+@Description("A batch of subproblems solved by Problem")
+@StackTrace(false)
+@Threshold("10 ms")
+final class SolveEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    @Description("The Problem method called, such as solve or solveParallel")
+    String method;
+
+    @Label("Subproblems")
+    int subProblems;
+
+    @Label("Points")
+    @Description("The total number of points of the batch")
+    long points;
+
+    @Label("True Answers")
+    int trueAnswers;
+}
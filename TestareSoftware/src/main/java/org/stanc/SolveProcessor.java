@@ -0,0 +1,290 @@
+package org.stanc;
+
+import org.stanc.metrics.SolverMetrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * class SolveProcessor:
+ * - a Flow.Processor from subproblems to their results, in the same order: a parser or a socket publishes the
+ * subproblems as it reads them, and never has to hold the whole problem in memory
+ * - at most maxInFlight subproblems are requested and not yet delivered, solved in parallel on the executor; nothing
+ * is requested from upstream beyond the demand of the subscriber, so a slow subscriber slows the producer down
+ * - the results are the ones of Problem.solveEach(): an invalid subproblem gets an error result and the stream goes
+ * on; there is no bound on the number of subproblems
+ * - a single subscriber; its cancel() cancels the upstream subscription and stops the subproblems being counted
+ * - onComplete and onError from upstream are passed on after the results of the subproblems received before them
+ */
+public final class SolveProcessor implements Flow.Processor<List<Point>, SubProblemResult> {
+
+    private final ProblemLimits limits;
+    private final Executor executor;
+    private final int maxInFlight;
+    private volatile ResultCache resultCache;
+    private volatile SolverMetrics metrics;
+
+    // drain() runs on one thread at a time, see drain()
+    private final AtomicInteger drains = new AtomicInteger();
+
+    // the fields below are guarded by this
+    private final ArrayDeque<CompletableFuture<SubProblemResult>> pending = new ArrayDeque<>();
+    private long demand;
+    private long requested;
+    private int nextIndex;
+    private Flow.Subscription upstream;
+    private Flow.Subscriber<? super SubProblemResult> downstream;
+    private boolean upstreamDone;
+    private Throwable error;
+    private boolean terminated;
+
+    public SolveProcessor(ProblemLimits limits, Executor executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight should be positive, got " + maxInFlight);
+        }
+        this.limits = Objects.requireNonNull(limits, "limits");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.maxInFlight = maxInFlight;
+    }
+
+    public ProblemLimits getLimits() {
+        return limits;
+    }
+
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Same as Problem.setResultCache, to be called before subscribing.
+     */
+    public void setResultCache(ResultCache resultCache) {
+        this.resultCache = resultCache;
+    }
+
+    /**
+     * Same as Problem.setMetrics, to be called before subscribing.
+     */
+    public void setMetrics(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SubProblemResult> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        boolean accepted;
+        synchronized (this) {
+            accepted = downstream == null;
+            if (accepted) {
+                downstream = subscriber;
+            }
+        }
+        if (!accepted) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("SolveProcessor supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription());
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        Objects.requireNonNull(subscription, "subscription");
+        boolean accepted;
+        synchronized (this) {
+            accepted = upstream == null && !terminated;
+            if (accepted) {
+                upstream = subscription;
+            }
+        }
+        if (!accepted) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(List<Point> points) {
+        int index;
+        synchronized (this) {
+            if (terminated) {
+                return;
+            }
+            index = nextIndex++;
+            requested = Math.max(0, requested - 1);
+        }
+        CompletableFuture<SubProblemResult> result = AsyncSolve.supply(executor, stop -> {
+            Workspace workspace = Workspace.forCurrentThread();
+            return Problem.solveLeniently(points, index, limits, workspace, workspace.counterFor(limits), resultCache,
+                    metrics, stop);
+        });
+        synchronized (this) {
+            pending.add(result);
+        }
+        result.whenComplete((answer, failure) -> drain());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (this) {
+            upstreamDone = true;
+            if (error == null) {
+                error = throwable;
+            }
+        }
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            upstreamDone = true;
+        }
+        drain();
+    }
+
+    /**
+     * Ends the stream with the error, without waiting for the subproblems in flight.
+     */
+    private void fail(Throwable failure) {
+        Flow.Subscription subscription;
+        List<CompletableFuture<SubProblemResult>> cancelled;
+        synchronized (this) {
+            if (error == null) {
+                error = failure;
+            }
+            upstreamDone = true;
+            subscription = upstream;
+            cancelled = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        cancelled.forEach(result -> result.cancel(false));
+        drain();
+    }
+
+    /**
+     * Delivers the results solved in order while there is demand, requests more subproblems from upstream, and ends
+     * the stream once everything is delivered. Called from any thread on every event, it runs on one thread at a time:
+     * a call made while another one runs only makes that one loop once more.
+     */
+    private void drain() {
+        if (drains.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (true) {
+                Flow.Subscriber<? super SubProblemResult> subscriber;
+                CompletableFuture<SubProblemResult> head;
+                synchronized (this) {
+                    subscriber = downstream;
+                    head = pending.peek();
+                    if (terminated || subscriber == null || head == null || !head.isDone() || demand == 0) {
+                        break;
+                    }
+                    pending.poll();
+                    if (demand != Long.MAX_VALUE) {
+                        demand--;
+                    }
+                }
+                SubProblemResult result;
+                try {
+                    result = head.join();
+                } catch (RuntimeException e) {
+                    fail(AsyncSolve.unwrap(e));
+                    break;
+                }
+                subscriber.onNext(result);
+            }
+
+            Flow.Subscriber<? super SubProblemResult> finished = null;
+            Throwable failure = null;
+            Flow.Subscription subscription = null;
+            long n = 0;
+            synchronized (this) {
+                if (!terminated && downstream != null) {
+                    if (upstreamDone) {
+                        if (pending.isEmpty()) {
+                            terminated = true;
+                            finished = downstream;
+                            failure = error;
+                        }
+                    } else if (upstream != null) {
+                        n = Math.min(maxInFlight, demand) - pending.size() - requested;
+                        if (n > 0) {
+                            requested += n;
+                            subscription = upstream;
+                        }
+                    }
+                }
+            }
+            if (subscription != null) {
+                subscription.request(n);
+            }
+            if (finished != null) {
+                if (failure == null) {
+                    finished.onComplete();
+                } else {
+                    finished.onError(failure);
+                }
+            }
+            missed = drains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private final class Subscription implements Flow.Subscription {
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("The number of results requested should be positive, got " + n));
+                return;
+            }
+            synchronized (SolveProcessor.this) {
+                demand += n;
+                if (demand < 0) {
+                    demand = Long.MAX_VALUE;
+                }
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            Flow.Subscription subscription;
+            List<CompletableFuture<SubProblemResult>> cancelled;
+            synchronized (SolveProcessor.this) {
+                if (terminated) {
+                    return;
+                }
+                terminated = true;
+                subscription = upstream;
+                cancelled = new ArrayList<>(pending);
+                pending.clear();
+            }
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            cancelled.forEach(result -> result.cancel(false));
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.stanc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * class SolveResults:
+ * - the answers of a batch as bits: bit i of the answer words is 1 for TRUE, bit i of the validity mask is 1 when
+ * subproblem i has an answer, 0 when it got an error (see Problem.solveEachResults())
+ * - 2 bits per subproblem instead of a String reference, and counting or finding the TRUE ones works a word at a
+ * time; the errors, if any, are kept aside
+ * - immutable once returned by Problem; io.ResultFile writes and reads it in a compact binary form
+ */
+public final class SolveResults {
+
+    private final int size;
+    private final long[] answers;
+    private final long[] valid;
+    private SubProblemResult[] errors;
+
+    SolveResults(int size) {
+        this.size = size;
+        this.answers = new long[words(size)];
+        this.valid = new long[words(size)];
+    }
+
+    private SolveResults(int size, long[] answers, long[] valid) {
+        this.size = size;
+        this.answers = answers;
+        this.valid = valid;
+    }
+
+    /**
+     * Results from their words, as returned by toAnswerWords() and toValidWords(). Errors only keep their bit, so
+     * getError() returns null for them.
+     */
+    public static SolveResults fromWords(int size, long[] answers, long[] valid) {
+        if (size < 0 || answers.length != words(size) || valid.length != words(size)) {
+            throw new IllegalArgumentException("Expected " + words(size) + " words for " + size + " results");
+        }
+        long[] answerCopy = answers.clone();
+        long[] validCopy = valid.clone();
+        if (size % 64 != 0 && validCopy.length > 0) {
+            long mask = -1L >>> (64 - size % 64);
+            answerCopy[answerCopy.length - 1] &= mask;
+            validCopy[validCopy.length - 1] &= mask;
+        }
+        for (int w = 0; w < answerCopy.length; w++) {
+            answerCopy[w] &= validCopy[w];
+        }
+        return new SolveResults(size, answerCopy, validCopy);
+    }
+
+    static SolveResults of(boolean[] answers) {
+        SolveResults results = new SolveResults(answers.length);
+        for (int i = 0; i < answers.length; i++) {
+            results.set(i, answers[i]);
+        }
+        return results;
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    void set(int subProblemIndex, boolean answer) {
+        valid[subProblemIndex >>> 6] |= 1L << subProblemIndex;
+        if (answer) {
+            answers[subProblemIndex >>> 6] |= 1L << subProblemIndex;
+        }
+    }
+
+    void setError(int subProblemIndex, SubProblemResult error) {
+        if (errors == null) {
+            errors = new SubProblemResult[size];
+        }
+        errors[subProblemIndex] = error;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * True if the subproblem has an answer, false if it got an error.
+     */
+    public boolean isValid(int subProblemIndex) {
+        checkIndex(subProblemIndex);
+        return (valid[subProblemIndex >>> 6] & 1L << subProblemIndex) != 0;
+    }
+
+    /**
+     * The answer of a valid subproblem.
+     */
+    public boolean get(int subProblemIndex) {
+        if (!isValid(subProblemIndex)) {
+            throw new IllegalStateException("Subproblem " + subProblemIndex + " has no answer");
+        }
+        return (answers[subProblemIndex >>> 6] & 1L << subProblemIndex) != 0;
+    }
+
+    /**
+     * The error of a subproblem without answer, null for a valid one or when only the bits are known.
+     */
+    public SubProblemResult getError(int subProblemIndex) {
+        checkIndex(subProblemIndex);
+        return errors == null ? null : errors[subProblemIndex];
+    }
+
+    public int countTrue() {
+        return count(answers);
+    }
+
+    public int countFalse() {
+        return count(valid) - countTrue();
+    }
+
+    public int countErrors() {
+        return size - count(valid);
+    }
+
+    /**
+     * The first subproblem at or after from with a TRUE answer, -1 if there is none.
+     */
+    public int nextTrue(int from) {
+        return next(from, false);
+    }
+
+    /**
+     * The first subproblem at or after from with a FALSE answer, -1 if there is none.
+     */
+    public int nextFalse(int from) {
+        return next(from, true);
+    }
+
+    public void forEachTrue(IntConsumer action) {
+        for (int i = nextTrue(0); i >= 0; i = nextTrue(i + 1)) {
+            action.accept(i);
+        }
+    }
+
+    public void forEachFalse(IntConsumer action) {
+        for (int i = nextFalse(0); i >= 0; i = nextFalse(i + 1)) {
+            action.accept(i);
+        }
+    }
+
+    public long[] toAnswerWords() {
+        return answers.clone();
+    }
+
+    public long[] toValidWords() {
+        return valid.clone();
+    }
+
+    /**
+     * "TRUE" / "FALSE" per subproblem, as returned by solve(); only for results without errors.
+     */
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i) ? "TRUE" : "FALSE");
+        }
+        return list;
+    }
+
+    /**
+     * One SubProblemResult per subproblem, as returned by solveEach().
+     */
+    public List<SubProblemResult> toResultList() {
+        List<SubProblemResult> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(isValid(i) ? SubProblemResult.of(get(i)) : getError(i));
+        }
+        return list;
+    }
+
+    private int next(int from, boolean inverted) {
+        if (from < 0) {
+            throw new IndexOutOfBoundsException("from " + from);
+        }
+        if (from >= size) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = (inverted ? ~answers[w] & valid[w] : answers[w]) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return w * 64 + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == answers.length) {
+                return -1;
+            }
+            word = inverted ? ~answers[w] & valid[w] : answers[w];
+        }
+    }
+
+    private static int count(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private void checkIndex(int subProblemIndex) {
+        if (subProblemIndex < 0 || subProblemIndex >= size) {
+            throw new IndexOutOfBoundsException("Subproblem " + subProblemIndex + " of " + size);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof SolveResults)) {
+            return false;
+        }
+        SolveResults other = (SolveResults) o;
+        return size == other.size && Arrays.equals(answers, other.answers) && Arrays.equals(valid, other.valid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * size + Arrays.hashCode(answers)) + Arrays.hashCode(valid);
+    }
+
+    @Override
+    public String toString() {
+        return toResultList().toString();
+    }
+}
@@ -0,0 +1,66 @@
+package org.stanc;
+
+import org.stanc.engine.PairCounter;
+import org.stanc.io.MappedBatch;
+import org.stanc.io.ProblemReader;
+import org.stanc.io.SubProblemSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * class StreamSolver:
+ * - solves the subproblems of a SubProblemSource (a text ProblemReader or a binary MappedBatch) while it reads them,
+ * so an input of any size runs in the memory of its biggest subproblem
+ * - results and exceptions are the ones Problem.solve() gives for the same data
+ */
+public final class StreamSolver {
+
+    private final ProblemLimits limits;
+
+    public StreamSolver(ProblemLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Solves every subproblem of the source and returns their number.
+     */
+    public int solve(SubProblemSource source, ResultListener listener) throws IOException {
+        PairCounter counter = Workspace.forCurrentThread().counterFor(limits);
+        return source.read(limits, (index, xs, ys, n) -> listener.onResult(index, counter.hasTriple(xs, ys, 0, n) ? "TRUE" : "FALSE"));
+    }
+
+    /**
+     * Solves subproblem i of a binary batch alone, without reading the ones before it.
+     */
+    public String solveOne(MappedBatch batch, int subProblemIndex) throws IOException {
+        PairCounter counter = Workspace.forCurrentThread().counterFor(limits);
+        String[] result = new String[1];
+        batch.read(subProblemIndex, limits, (index, xs, ys, n) -> result[0] = counter.hasTriple(xs, ys, 0, n) ? "TRUE" : "FALSE");
+        return result[0];
+    }
+
+    /**
+     * Usage: StreamSolver [file | -]
+     * Reads the text format (optionally gzipped) from the file or from stdin and prints one result per line.
+     * Files ending in .bin are read as binary batches.
+     * The limits are the default ones unless -Dlimits=unbounded is given.
+     */
+    public static void main(String[] args) throws IOException {
+        ProblemLimits limits = "unbounded".equals(System.getProperty("limits")) ? ProblemLimits.unbounded() : ProblemLimits.DEFAULT;
+        boolean stdin = args.length == 0 || "-".equals(args[0]);
+        boolean binary = !stdin && args[0].endsWith(".bin");
+        try (SubProblemSource input = stdin ? ProblemReader.of(System.in)
+                : binary ? MappedBatch.open(Paths.get(args[0])) : ProblemReader.open(Paths.get(args[0]));
+             Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))) {
+            new StreamSolver(limits).solve(input, (index, result) -> {
+                out.write(result);
+                out.write('\n');
+            });
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.stanc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * class SubProblemEvent:
+ * - a JFR event around the counting of one subproblem: its index in the batch, N, the answer and the work done, i.e.
+ * the pairs visited before the early exit and the distinct (|dx|, |dy|) keys they produced
+ * - with a result cache, a hit visits no pairs and counts no keys
+ * - the fields are only filled when the event is committed, so an enabled event below its threshold costs two
+ * clock reads; enabled with a 1 ms threshold by default, see solver.jfc
+ */
+@Name("org.stanc.SubProblem")
+@Label("Subproblem")
+@Category({"Stanc", "Solver"})
+@Description("The counting of one subproblem")
+@StackTrace(false)
+@Threshold("1 ms")
+final class SubProblemEvent extends jdk.jfr.Event {
+
+    @Label("Index")
+    int index;
+
+    @Label("Points")
+    int points;
+
+    @Label("Result")
+    boolean result;
+
+    @Label("Pairs Visited")
+    long pairsVisited;
+
+    @Label("Distinct Keys")
+    long distinctKeys;
+}
@@ -0,0 +1,94 @@
+package org.stanc;
+
+import org.stanc.metrics.ValidationFailure;
+
+/**
+ * class SubProblemResult:
+ * - the outcome of one subproblem in Problem.solveEach(): TRUE, FALSE, or an error with the bound it violated
+ * - TRUE and FALSE are shared constants; an error only keeps its code and indexes, the message is formatted when
+ * getMessage() is called, so a bad subproblem costs no String.format unless someone reads it
+ * - the message is the one solve() would have thrown for that subproblem
+ */
+public final class SubProblemResult {
+
+    public static final SubProblemResult TRUE = new SubProblemResult(null, -1, -1, null);
+    public static final SubProblemResult FALSE = new SubProblemResult(null, -1, -1, null);
+
+    private final ValidationFailure error;
+    private final int subProblemIndex;
+    private final int pointIndex;
+    private final ProblemLimits limits;
+
+    private SubProblemResult(ValidationFailure error, int subProblemIndex, int pointIndex, ProblemLimits limits) {
+        this.error = error;
+        this.subProblemIndex = subProblemIndex;
+        this.pointIndex = pointIndex;
+        this.limits = limits;
+    }
+
+    public static SubProblemResult of(boolean answer) {
+        return answer ? TRUE : FALSE;
+    }
+
+    /**
+     * The subproblem is null or its number of points is out of the limits.
+     */
+    static SubProblemResult invalidPointsCount(int subProblemIndex, ProblemLimits limits) {
+        return new SubProblemResult(ValidationFailure.POINTS_BOUNDS, subProblemIndex, -1, limits);
+    }
+
+    /**
+     * The point has a coordinate out of the limits.
+     */
+    static SubProblemResult invalidCoordinates(int subProblemIndex, int pointIndex, ProblemLimits limits) {
+        return new SubProblemResult(ValidationFailure.COORDINATES_BOUNDS, subProblemIndex, pointIndex, limits);
+    }
+
+    public boolean isError() {
+        return error != null;
+    }
+
+    /**
+     * The answer, for a result that is not an error.
+     */
+    public boolean getAnswer() {
+        if (error != null) {
+            throw new IllegalStateException("Subproblem " + subProblemIndex + " has no answer: " + getMessage());
+        }
+        return this == TRUE;
+    }
+
+    /**
+     * The violated bound, null if the result is not an error.
+     */
+    public ValidationFailure getError() {
+        return error;
+    }
+
+    /**
+     * The index of the first point out of bounds for a COORDINATES_BOUNDS error, -1 otherwise.
+     */
+    public int getPointIndex() {
+        return pointIndex;
+    }
+
+    /**
+     * The message solve() throws for this error, null if the result is not an error.
+     */
+    public String getMessage() {
+        if (error == null) {
+            return null;
+        }
+        return error == ValidationFailure.POINTS_BOUNDS
+                ? limits.pointsMessage(subProblemIndex)
+                : limits.coordinatesMessage(subProblemIndex, pointIndex);
+    }
+
+    /**
+     * "TRUE", "FALSE" like in solve(), or the error message.
+     */
+    @Override
+    public String toString() {
+        return error != null ? getMessage() : this == TRUE ? "TRUE" : "FALSE";
+    }
+}
@@ -0,0 +1,71 @@
+package org.stanc;
+
+import org.stanc.engine.DenseCounter;
+import org.stanc.engine.Engine;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.PlanningCounter;
+import org.stanc.engine.ThresholdCounter;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per thread scratch space: the coordinates of the current subproblem, the pair counters and the threshold counter.
+ * The counters are PlanningCounters, which pick an engine for every subproblem; one is kept for bounded limits and
+ * one for wide limits and each wide engine, so alternating between them doesn't reallocate.
+ */
+final class Workspace {
+
+    private static final ThreadLocal<Workspace> WORKSPACES = ThreadLocal.withInitial(Workspace::new);
+
+    int[] xs = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+    int[] ys = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+    private PairCounter boundedCounter;
+    private long boundedMaxDelta = -1;
+    private final Map<Engine, PairCounter> wideCounters = new EnumMap<>(Engine.class);
+    private ThresholdCounter thresholdCounter;
+    private long thresholdMaxDelta = -1;
+
+    private Workspace() {
+    }
+
+    static Workspace forCurrentThread() {
+        return WORKSPACES.get();
+    }
+
+    void ensureCapacity(int n) {
+        if (xs.length < n) {
+            int capacity = Math.max(n, (int) Math.min(Integer.MAX_VALUE - 8, xs.length * 2L));
+            xs = new int[capacity];
+            ys = new int[capacity];
+        }
+    }
+
+    PairCounter counterFor(ProblemLimits limits) {
+        return counterFor(limits, Engine.HASH);
+    }
+
+    /**
+     * @param wideEngine the engine of the counter for wide limits, HASH or RADIX; bounded limits always count DENSE
+     */
+    PairCounter counterFor(ProblemLimits limits, Engine wideEngine) {
+        long maxDelta = limits.maxDelta();
+        if (maxDelta > DenseCounter.MAX_DELTA) {
+            return wideCounters.computeIfAbsent(wideEngine, engine -> new PlanningCounter(maxDelta, engine));
+        }
+        if (boundedCounter == null || boundedMaxDelta != maxDelta) {
+            boundedCounter = new PlanningCounter(maxDelta);
+            boundedMaxDelta = maxDelta;
+        }
+        return boundedCounter;
+    }
+
+    ThresholdCounter thresholdCounterFor(ProblemLimits limits) {
+        long maxDelta = Math.min(limits.maxDelta(), DenseCounter.MAX_DELTA + 1L);
+        if (thresholdCounter == null || thresholdMaxDelta != maxDelta) {
+            thresholdCounter = new ThresholdCounter(maxDelta);
+            thresholdMaxDelta = maxDelta;
+        }
+        return thresholdCounter;
+    }
+}
@@ -0,0 +1,83 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class DenseCounter:
+ * - counts the (|dx|, |dy|) key of every pair of points in a primitive array indexed by dx * width + dy
+ * - the arrays are reused between runs: a generation stamp marks which cells belong to the current run, so there
+ * is no clearing and no heap allocation per pair
+ * - an instance is not thread safe, every thread should use its own counter
+ * - memory grows with the square of the coordinate range, so it is only meant for ranges up to MAX_DELTA
+ */
+public final class DenseCounter implements PairCounter {
+
+    public static final int MAX_DELTA = 255;
+
+    private final int width;
+    private final int[] counts;
+    private final int[] stamps;
+    private int generation;
+    private long pairsExamined;
+    private long keysCounted;
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, i.e. maxCoordinate - minCoordinate
+     */
+    public DenseCounter(int maxDelta) {
+        if (maxDelta < 0 || maxDelta > MAX_DELTA) {
+            throw new IllegalArgumentException("maxDelta should be in [0, " + MAX_DELTA + "], got " + maxDelta);
+        }
+        this.width = maxDelta + 1;
+        this.counts = new int[width * width];
+        this.stamps = new int[width * width];
+    }
+
+    public int getMaxDelta() {
+        return width - 1;
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        int gen = nextGeneration();
+        int keys = 0;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            int x = xs[i];
+            int y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                int key = Math.abs(x - xs[j]) * width + Math.abs(y - ys[j]);
+                if (stamps[key] != gen) {
+                    stamps[key] = gen;
+                    counts[key] = 1;
+                    keys++;
+                } else if (++counts[key] == 3) {
+                    pairsExamined += PairCounter.pairsUpTo(from, to, i, j);
+                    keysCounted += keys;
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        keysCounted += keys;
+        return false;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+}
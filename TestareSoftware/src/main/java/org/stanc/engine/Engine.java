@@ -0,0 +1,29 @@
+package org.stanc.engine;
+
+/**
+ * The ways a PlanningCounter can answer a subproblem.
+ */
+public enum Engine {
+
+    /**
+     * No counting at all: at most 2 pairs can't share a key 3 times, and more than 2 * K pairs over K possible keys
+     * must. K is (spanX + 1) * (spanY + 1), the spans being the coordinate spread of the subproblem.
+     */
+    PIGEONHOLE,
+
+    /**
+     * A dense, stamped array of counts, for spreads up to DenseCounter.MAX_DELTA.
+     */
+    DENSE,
+
+    /**
+     * A hash table of counts, for wider spreads.
+     */
+    HASH,
+
+    /**
+     * Blocks of keys radix sorted and merged, see RadixSortCounter: an experimental alternative to HASH, measured
+     * slower, never picked by the plan, only when given to PlanningCounter(maxDelta, wideEngine).
+     */
+    RADIX
+}
@@ -0,0 +1,51 @@
+package org.stanc.engine;
+
+/**
+ * class HashCounter:
+ * - counts the pair keys in a LongIntHashMap, for coordinate ranges too wide for a DenseCounter
+ * - |dx| and |dy| are computed on longs, so they fit 32 unsigned bits each for any int coordinates and are packed
+ * into a single long key
+ */
+public final class HashCounter implements PairCounter {
+
+    private final LongIntHashMap counts = new LongIntHashMap();
+    private long pairsExamined;
+    private long keysCounted;
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        counts.clear();
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                if (counts.addTo(key(x, y, xs[j], ys[j]), 1) == 3) {
+                    pairsExamined += PairCounter.pairsUpTo(from, to, i, j);
+                    keysCounted += counts.size();
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        keysCounted += counts.size();
+        return false;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+
+    /**
+     * Packs (|x1 - x2|, |y1 - y2|) into a long: |dx| in the high 32 bits, |dy| in the low 32 bits.
+     */
+    public static long key(long x1, long y1, long x2, long y2) {
+        return Math.abs(x1 - x2) << 32 | Math.abs(y1 - y2);
+    }
+}
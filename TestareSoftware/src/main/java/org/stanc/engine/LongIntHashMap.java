@@ -0,0 +1,189 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class LongIntHashMap:
+ * - open addressing map from long keys to int values, with linear probing over primitive arrays
+ * - key 0 marks an empty slot in the table, so the value of key 0 is kept apart
+ * - removal uses backward shift deletion, so a table with many inserts and removes does not fill with tombstones
+ * - not thread safe
+ */
+public final class LongIntHashMap {
+
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public LongIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongIntHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds delta to the value of key (a missing key counts as 0) and returns the new value.
+     */
+    public int addTo(long key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue += delta;
+            return zeroValue;
+        }
+        int slot = slot(key);
+        long existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the value of key, 0 if the key is missing.
+     */
+    public int get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : 0;
+        }
+        int slot = slot(key);
+        long existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    /**
+     * Removes key and returns its value, 0 if the key was missing.
+     */
+    public int remove(long key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return 0;
+            }
+            int value = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return value;
+        }
+        int slot = slot(key);
+        long existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                int value = values[slot];
+                closeGap(slot);
+                size--;
+                return value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every key. A table left oversized by a big run is dropped, so small runs don't pay for clearing it.
+     */
+    public void clear() {
+        if (keys.length > DEFAULT_CAPACITY && (long) size * 8 < keys.length) {
+            allocate(Math.max(DEFAULT_CAPACITY, capacityFor(size)));
+        } else {
+            Arrays.fill(keys, 0);
+        }
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Backward shift deletion: the keys following the emptied slot in its probe run are moved back when the gap lies
+     * between their ideal slot and the slot they are in, so no tombstones are needed.
+     */
+    private void closeGap(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == 0) {
+                break;
+            }
+            int ideal = slot(key);
+            if (((slot - ideal) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        if (newCapacity <= 0) {
+            throw new IllegalStateException("Too many keys for a LongIntHashMap: " + size);
+        }
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR) + 1;
+        if (needed > (1 << 30)) {
+            throw new IllegalStateException("Too many keys for a LongIntHashMap: " + expectedSize);
+        }
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit((int) needed - 1) << 1);
+    }
+}
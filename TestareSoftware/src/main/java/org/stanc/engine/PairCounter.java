@@ -0,0 +1,51 @@
+package org.stanc.engine;
+
+/**
+ * A PairCounter answers the question of a subproblem: is there a (|dx|, |dy|) key shared by at least 3 pairs of
+ * points? Implementations keep their scratch memory between runs and are not thread safe.
+ */
+public interface PairCounter {
+
+    /**
+     * Returns true if some (|dx|, |dy|) key is shared by at least 3 pairs of the points with indexes in [from, to).
+     */
+    default boolean hasTriple(int[] xs, int[] ys, int from, int to) {
+        return hasTriple(xs, ys, from, to, StopSignal.NONE);
+    }
+
+    /**
+     * Same as hasTriple(xs, ys, from, to), but throws a CancellationException once stop is raised. The signal is
+     * checked once per row of pairs; the pairs of a stopped run are not counted in pairsExamined().
+     */
+    boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop);
+
+    /**
+     * The number of pairs examined by this counter since it was created, over all its runs. A run stops at the first
+     * key reaching 3 pairs, so the difference around a run is the work it actually did.
+     */
+    long pairsExamined();
+
+    /**
+     * The number of distinct keys counted by this counter since it was created, summed over its runs: the difference
+     * around a run is the number of distinct (|dx|, |dy|) keys that run saw.
+     */
+    long keysCounted();
+
+    /**
+     * The number of pairs visited in row order (i ascending, then j ascending) up to and including the pair (i, j)
+     * of the points [from, to).
+     */
+    static long pairsUpTo(int from, int to, int i, int j) {
+        long n = to - from;
+        long rows = i - from;
+        return rows * (n - 1) - rows * (rows - 1) / 2 + (j - i);
+    }
+
+    /**
+     * The number of pairs of the points [from, to), all visited by a run that finds no triple.
+     */
+    static long pairCount(int from, int to) {
+        long n = to - from;
+        return n * (n - 1) / 2;
+    }
+}
@@ -0,0 +1,131 @@
+package org.stanc.engine;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * class PlanningCounter:
+ * - picks an Engine for every subproblem from N and the actual coordinate spread of its points, which is often much
+ * smaller than what the limits allow
+ * - PIGEONHOLE first, when the number of pairs alone decides the answer; then DENSE when both spans fit
+ * DenseCounter.MAX_DELTA, even if the limits are wider; HASH otherwise
+ * - the dense and wide counters are created on first use, from VectorCounters; RADIX can replace HASH as the wide
+ * counter when given to the constructor
+ * - every choice is logged at FINE on the org.stanc.engine.PlanningCounter logger; not thread safe
+ */
+public final class PlanningCounter implements PairCounter {
+
+    private static final Logger LOGGER = Logger.getLogger(PlanningCounter.class.getName());
+
+    private final long maxDelta;
+    private final Engine wideEngine;
+    private PairCounter dense;
+    private PairCounter wide;
+    private Engine lastEngine;
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     */
+    public PlanningCounter(long maxDelta) {
+        this(maxDelta, Engine.HASH);
+    }
+
+    /**
+     * @param maxDelta   the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     * @param wideEngine the engine for the spreads too wide for DENSE: HASH or RADIX
+     */
+    public PlanningCounter(long maxDelta, Engine wideEngine) {
+        if (maxDelta < 0) {
+            throw new IllegalArgumentException("maxDelta should not be negative, got " + maxDelta);
+        }
+        if (wideEngine != Engine.HASH && wideEngine != Engine.RADIX) {
+            throw new IllegalArgumentException("The wide engine should be HASH or RADIX, got " + wideEngine);
+        }
+        this.maxDelta = maxDelta;
+        this.wideEngine = wideEngine;
+    }
+
+    public Engine getWideEngine() {
+        return wideEngine;
+    }
+
+    /**
+     * The engine for the points [from, to), without running it.
+     */
+    public static Engine plan(int[] xs, int[] ys, int from, int to) {
+        long pairs = PairCounter.pairCount(from, to);
+        if (pairs < 3) {
+            return Engine.PIGEONHOLE;
+        }
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            minX = Math.min(minX, xs[i]);
+            maxX = Math.max(maxX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        long spanX = (long) maxX - minX;
+        long spanY = (long) maxY - minY;
+        // pairs > 2 * (spanX + 1) * (spanY + 1), without overflowing for wide spans
+        if (spanX + 1 <= (pairs - 1) / 2 / (spanY + 1)) {
+            return Engine.PIGEONHOLE;
+        }
+        return spanX <= DenseCounter.MAX_DELTA && spanY <= DenseCounter.MAX_DELTA ? Engine.DENSE : Engine.HASH;
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        Engine engine = plan(xs, ys, from, to);
+        if (engine == Engine.HASH) {
+            engine = wideEngine;
+        }
+        lastEngine = engine;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Counting " + (to - from) + " points with " + engine);
+        }
+        switch (engine) {
+            case PIGEONHOLE:
+                return PairCounter.pairCount(from, to) >= 3;
+            case DENSE:
+                return denseCounter().hasTriple(xs, ys, from, to, stop);
+            default:
+                return wideCounter().hasTriple(xs, ys, from, to, stop);
+        }
+    }
+
+    /**
+     * The engine of the last hasTriple() call, null before the first one.
+     */
+    public Engine getLastEngine() {
+        return lastEngine;
+    }
+
+    private PairCounter denseCounter() {
+        if (dense == null) {
+            dense = VectorCounters.newCounter(Math.min(maxDelta, DenseCounter.MAX_DELTA));
+        }
+        return dense;
+    }
+
+    private PairCounter wideCounter() {
+        if (wide == null) {
+            wide = wideEngine == Engine.RADIX
+                    ? new RadixSortCounter()
+                    : VectorCounters.newCounter(Math.max(maxDelta, DenseCounter.MAX_DELTA + 1L));
+        }
+        return wide;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return (dense == null ? 0 : dense.pairsExamined()) + (wide == null ? 0 : wide.pairsExamined());
+    }
+
+    @Override
+    public long keysCounted() {
+        return (dense == null ? 0 : dense.keysCounted()) + (wide == null ? 0 : wide.keysCounted());
+    }
+}
@@ -0,0 +1,187 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class RadixSortCounter:
+ * - counts the (|dx|, |dy|) keys without random memory accesses, for large N with spreads too wide for DenseCounter:
+ * the keys are generated in blocks, every block is radix sorted, and its runs of equal keys are merged into the
+ * sorted keys of the blocks before it, with their counts
+ * - a key reaching 3 pairs is found during that merge, so a run stops at the end of the block holding its triple;
+ * the blocks grow to half the number of distinct keys seen, up to MAX_BLOCK, which keeps the merges linear overall
+ * - pairsExamined() counts whole blocks, keysCounted() the distinct keys merged before the last block
+ * - experimental: EngineBenchmark measures it slower than HashCounter on both of its shapes, about 5, 18 and 85 ms
+ * against 2, 9 and 59 ms on FIRST_TRIPLE at n = 10k, 100k and 1M, and 2210 ms against 1199 ms on ALL_FALSE at
+ * n = 1M; kept as an opt-in option for further work on the merges
+ * - never picked by PlanningCounter.plan(); select it with PlanningCounter(maxDelta, Engine.RADIX)
+ */
+public final class RadixSortCounter implements PairCounter {
+
+    static final int MIN_BLOCK = 1 << 12;
+    static final int MAX_BLOCK = 1 << 22;
+
+    private static final int DIGITS = 8;
+    private static final int RADIX = 256;
+
+    private long[] block = new long[MIN_BLOCK];
+    private long[] sortBuffer = new long[MIN_BLOCK];
+    private final int[][] histograms = new int[DIGITS][RADIX];
+    private final int[] shifts = new int[DIGITS];
+    private long[] seenKeys = new long[MIN_BLOCK];
+    private byte[] seenCounts = new byte[MIN_BLOCK];
+    private long[] mergedKeys = new long[MIN_BLOCK];
+    private byte[] mergedCounts = new byte[MIN_BLOCK];
+    private int seenSize;
+    private long pairsExamined;
+    private long keysCounted;
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        seenSize = 0;
+        long remaining = PairCounter.pairCount(from, to);
+        int blockSize = nextBlockSize(remaining);
+        int length = 0;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                block[length++] = HashCounter.key(x, y, xs[j], ys[j]);
+                if (length == blockSize) {
+                    if (flush(length)) {
+                        return true;
+                    }
+                    remaining -= length;
+                    length = 0;
+                    blockSize = nextBlockSize(remaining);
+                }
+            }
+        }
+        if (length > 0 && flush(length)) {
+            return true;
+        }
+        keysCounted += seenSize;
+        return false;
+    }
+
+    private int nextBlockSize(long remaining) {
+        int size = (int) Math.min(Math.min(remaining, MAX_BLOCK), Math.max(MIN_BLOCK, seenSize / 2));
+        if (block.length < size) {
+            block = new long[size];
+            sortBuffer = new long[size];
+        }
+        return Math.max(1, size);
+    }
+
+    /**
+     * Sorts the block and merges it into the keys seen so far. Returns true if a key reaches 3 pairs.
+     */
+    private boolean flush(int length) {
+        pairsExamined += length;
+        long[] sorted = sort(length);
+        if (mergedKeys.length < seenSize + length) {
+            int capacity = Math.max(seenSize + length, mergedKeys.length * 2);
+            mergedKeys = new long[capacity];
+            mergedCounts = new byte[capacity];
+        }
+        long[] keys = seenKeys;
+        byte[] counts = seenCounts;
+        int seen = 0;
+        int out = 0;
+        int b = 0;
+        while (b < length) {
+            long key = sorted[b];
+            int run = 1;
+            while (b + run < length && sorted[b + run] == key) {
+                run++;
+            }
+            while (seen < seenSize && Long.compareUnsigned(keys[seen], key) < 0) {
+                mergedKeys[out] = keys[seen];
+                mergedCounts[out++] = counts[seen++];
+            }
+            int count = run;
+            if (seen < seenSize && keys[seen] == key) {
+                count += counts[seen++];
+            }
+            if (count >= 3) {
+                keysCounted += seenSize;
+                return true;
+            }
+            mergedKeys[out] = key;
+            mergedCounts[out++] = (byte) count;
+            b += run;
+        }
+        System.arraycopy(keys, seen, mergedKeys, out, seenSize - seen);
+        System.arraycopy(counts, seen, mergedCounts, out, seenSize - seen);
+        out += seenSize - seen;
+
+        seenKeys = mergedKeys;
+        seenCounts = mergedCounts;
+        mergedKeys = keys;
+        mergedCounts = counts;
+        seenSize = out;
+        return false;
+    }
+
+    /**
+     * LSD radix sort of block[0, length) in unsigned order, one byte per pass, skipping the bytes all keys share:
+     * with coordinates spread over less than 2^16, that is half of them. Returns the array holding the sorted keys:
+     * block or sortBuffer.
+     */
+    private long[] sort(int length) {
+        long[] source = block;
+        long or = 0;
+        long and = -1;
+        for (int k = 0; k < length; k++) {
+            or |= source[k];
+            and &= source[k];
+        }
+        long varying = or ^ and;
+        int digits = 0;
+        for (int d = 0; d < DIGITS; d++) {
+            if ((varying >>> (d * 8) & 0xFF) != 0) {
+                shifts[digits++] = d * 8;
+            }
+        }
+        for (int d = 0; d < digits; d++) {
+            Arrays.fill(histograms[d], 0);
+        }
+        for (int k = 0; k < length; k++) {
+            long key = source[k];
+            for (int d = 0; d < digits; d++) {
+                histograms[d][(int) (key >>> shifts[d]) & 0xFF]++;
+            }
+        }
+        long[] target = sortBuffer;
+        for (int d = 0; d < digits; d++) {
+            int[] histogram = histograms[d];
+            int shift = shifts[d];
+            int offset = 0;
+            for (int r = 0; r < RADIX; r++) {
+                int count = histogram[r];
+                histogram[r] = offset;
+                offset += count;
+            }
+            for (int k = 0; k < length; k++) {
+                long key = source[k];
+                target[histogram[(int) (key >>> shift) & 0xFF]++] = key;
+            }
+            long[] swap = source;
+            source = target;
+            target = swap;
+        }
+        block = source;
+        sortBuffer = target;
+        return source;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+}
@@ -0,0 +1,176 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class SketchCounter:
+ * - counts in two passes over the pairs, for the large subproblems whose distinct keys don't fit in memory but whose
+ * triples are rare; the first pass only feeds a Count-Min sketch, the second one counts a few keys exactly
+ * - the sketch has ROWS rows of 2 bit counters saturating at 3, sized by the memory budget and updated conservatively
+ * (only the smallest counters of a key grow); its estimate of a key is never below the real count, so every key
+ * reaching 3 pairs has an estimate of 3 by then and becomes a candidate
+ * - the second pass counts the candidates alone, exactly, and stops at the first one reaching 3: the answer is the
+ * one of HashCounter; without candidates there is no second pass, the answer is FALSE
+ * - a sketch too small for the pairs turns most keys into candidates, which costs about what a HashCounter does
+ * - every subproblem is planned first (see PlanningCounter.plan): PIGEONHOLE and DENSE subproblems are answered
+ * without the sketch, whatever their size, and so is a HASH subproblem whose table fits the budget
+ * - a row holds at most 2^35 counters, so its 2^30 words still fit an array
+ * - not thread safe
+ */
+public final class SketchCounter implements PairCounter {
+
+    /**
+     * The smallest memory budget, in bytes.
+     */
+    public static final long MIN_BUDGET = 1 << 16;
+
+    static final int ROWS = 4;
+
+    /**
+     * Heap bytes per key of a LongIntHashMap, as in SpillCounter.
+     */
+    private static final int TABLE_BYTES_PER_KEY = 48;
+    private static final int COUNTERS_PER_WORD = 32;
+    private static final int MAX_WIDTH_BITS = 35;
+
+    private final long memoryBudget;
+    private final int widthBits;
+    private final long[][] sketch;
+    private final LongIntHashMap candidates = new LongIntHashMap();
+    private final HashCounter inMemory = new HashCounter();
+    private DenseCounter dense;
+    private long pairsExamined;
+    private long keysCounted;
+    private int lastCandidates;
+
+    /**
+     * @param memoryBudget the heap bytes of the sketch, at least MIN_BUDGET; the candidates, and the DenseCounter of
+     *                     the DENSE subproblems, come on top
+     */
+    public SketchCounter(long memoryBudget) {
+        if (memoryBudget < MIN_BUDGET) {
+            throw new IllegalArgumentException("The memory budget should be at least " + MIN_BUDGET + " bytes, got "
+                    + memoryBudget);
+        }
+        this.memoryBudget = memoryBudget;
+        this.widthBits = widthBits(memoryBudget);
+        this.sketch = new long[ROWS][(int) ((1L << widthBits) / COUNTERS_PER_WORD)];
+    }
+
+    /**
+     * The log2 of the counters per row: ROWS rows of 4 counters per byte, rounded down to a power of two within the
+     * budget, and at most MAX_WIDTH_BITS.
+     */
+    static int widthBits(long memoryBudget) {
+        long countersPerRow = Math.min(1L << MAX_WIDTH_BITS, memoryBudget / ROWS * 4);
+        return 63 - Long.numberOfLeadingZeros(countersPerRow);
+    }
+
+    /**
+     * The number of candidate keys of the last run, counted exactly by the second pass; -1 if it ran without the
+     * sketch.
+     */
+    public int getLastCandidates() {
+        return lastCandidates;
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        lastCandidates = -1;
+        switch (PlanningCounter.plan(xs, ys, from, to)) {
+            case PIGEONHOLE:
+                return PairCounter.pairCount(from, to) >= 3;
+            case DENSE:
+                if (dense == null) {
+                    dense = new DenseCounter(DenseCounter.MAX_DELTA);
+                }
+                return dense.hasTriple(xs, ys, from, to, stop);
+            default:
+                break;
+        }
+        if (PairCounter.pairCount(from, to) * TABLE_BYTES_PER_KEY <= memoryBudget) {
+            return inMemory.hasTriple(xs, ys, from, to, stop);
+        }
+        for (long[] row : sketch) {
+            Arrays.fill(row, 0);
+        }
+        candidates.clear();
+        screen(xs, ys, from, to, stop);
+        pairsExamined += PairCounter.pairCount(from, to);
+        lastCandidates = candidates.size();
+        keysCounted += candidates.size();
+        return candidates.size() > 0 && verify(xs, ys, from, to, stop);
+    }
+
+    /**
+     * First pass: every pair goes into the sketch, the keys with an estimate of 3 into the candidates, with a value
+     * of 1 marking them (the map keeps no absent key apart from a count of 0).
+     */
+    private void screen(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        int shift = 64 - widthBits;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                long key = HashCounter.key(x, y, xs[j], ys[j]);
+                long h1 = key * 0x9E3779B97F4A7C15L;
+                long h2 = (key * 0xC2B2AE3D27D4EB4FL) | 1;
+                int estimate = 3;
+                for (int r = 0; r < ROWS; r++) {
+                    estimate = Math.min(estimate, counter(sketch[r], (h1 + r * h2) >>> shift));
+                }
+                int updated = Math.min(3, estimate + 1);
+                for (int r = 0; r < ROWS; r++) {
+                    raise(sketch[r], (h1 + r * h2) >>> shift, updated);
+                }
+                if (updated == 3 && candidates.get(key) == 0) {
+                    candidates.addTo(key, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Second pass: the exact count of the candidates on top of their mark, up to the first one reaching 3 pairs.
+     */
+    private boolean verify(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                long key = HashCounter.key(x, y, xs[j], ys[j]);
+                if (candidates.get(key) != 0 && candidates.addTo(key, 1) == 4) {
+                    pairsExamined += PairCounter.pairsUpTo(from, to, i, j);
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        return false;
+    }
+
+    private static int counter(long[] row, long index) {
+        return (int) (row[(int) (index >>> 5)] >>> ((index & 31) << 1)) & 3;
+    }
+
+    private static void raise(long[] row, long index, int value) {
+        int word = (int) (index >>> 5);
+        int bit = (int) (index & 31) << 1;
+        int current = (int) (row[word] >>> bit) & 3;
+        if (current < value) {
+            row[word] += (long) (value - current) << bit;
+        }
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined + inMemory.pairsExamined() + (dense == null ? 0 : dense.pairsExamined());
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted + inMemory.keysCounted() + (dense == null ? 0 : dense.keysCounted());
+    }
+}
@@ -0,0 +1,362 @@
+package org.stanc.engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * class SpillCounter:
+ * - counts the (|dx|, |dy|) keys of subproblems whose pairs don't fit in memory: the keys are hash partitioned into
+ * temporary files, through one write buffer per partition, then every partition is counted alone in a LongIntHashMap
+ * - every subproblem is planned first (see PlanningCounter.plan): PIGEONHOLE and DENSE subproblems are answered in
+ * memory, whatever their size, and only the HASH ones can spill; so does a HASH subproblem whose table fits the budget
+ * - the budget is split between the write buffers (a quarter), the DenseCounter and the table of one partition; the
+ * number of partitions of a split is bounded by the buffers, and a partition with more distinct keys than its table
+ * takes is split again, on the next bits of the key hash, so a run stays within the budget at any size
+ * - all the keys of a partition are in its file, so the first partition with a key reaching 3 pairs answers TRUE and
+ * the other partitions are not read
+ * - the files are deleted on close, which every run does in a finally block, so an exception, a StopSignal or an
+ * interrupt (a ClosedByInterruptException) leave nothing behind; their directory is also deleted by a shutdown hook
+ * if the JVM exits mid-run
+ * - IO failures are thrown as UncheckedIOException; not thread safe
+ */
+public final class SpillCounter implements PairCounter {
+
+    /**
+     * The smallest memory budget, in bytes.
+     */
+    public static final long MIN_BUDGET = 1 << 20;
+
+    /**
+     * The most partitions, and open files, of one split.
+     */
+    static final int MAX_PARTITIONS = 4096;
+
+    /**
+     * Heap bytes per key of a LongIntHashMap: 12 bytes per slot at a load factor of 0.5, doubled for the growth.
+     */
+    private static final int TABLE_BYTES_PER_KEY = 48;
+    /**
+     * Heap bytes of the DenseCounter of the DENSE subproblems: counts and stamps.
+     */
+    private static final long DENSE_BYTES = 2L * Integer.BYTES * (DenseCounter.MAX_DELTA + 1)
+            * (DenseCounter.MAX_DELTA + 1);
+    private static final int MIN_BUFFER = 4096;
+    private static final int MAX_BUFFER = 1 << 20;
+    private static final long HASH_MULTIPLIER = 0xC2B2AE3D27D4EB4FL;
+
+    private static final Set<Path> LIVE_DIRECTORIES = ConcurrentHashMap.newKeySet();
+    private static final Thread CLEANUP = new Thread(() -> LIVE_DIRECTORIES.forEach(SpillCounter::deleteQuietly),
+            "spill-cleanup");
+
+    static {
+        Runtime.getRuntime().addShutdownHook(CLEANUP);
+    }
+
+    private final Path directory;
+    private final long keysPerTable;
+    private final int maxPartitions;
+    private final int bufferSize;
+    private final LongIntHashMap counts = new LongIntHashMap();
+    private DenseCounter dense;
+    private long pairsExamined;
+    private long keysCounted;
+    private int lastPartitions;
+    private int lastFiles;
+
+    /**
+     * @param directory    where the temporary files go, null for the default temporary directory
+     * @param memoryBudget the heap bytes a run can use for its counts and buffers, at least MIN_BUDGET
+     */
+    public SpillCounter(Path directory, long memoryBudget) {
+        if (memoryBudget < MIN_BUDGET) {
+            throw new IllegalArgumentException("The memory budget should be at least " + MIN_BUDGET + " bytes, got "
+                    + memoryBudget);
+        }
+        this.directory = directory;
+        long bufferBudget = memoryBudget / 4;
+        this.keysPerTable = (memoryBudget - bufferBudget - DENSE_BYTES) / TABLE_BYTES_PER_KEY;
+        // the write buffers of a split, plus the read buffer of the file being split
+        this.maxPartitions = (int) Math.min(MAX_PARTITIONS, Long.highestOneBit(bufferBudget / MIN_BUFFER - 1));
+        this.bufferSize = (int) Math.min(MAX_BUFFER, bufferBudget / (maxPartitions + 1)) & ~7;
+    }
+
+    /**
+     * The number of partitions the points [from, to) are first spilled into, if they are: 1 when the table of all
+     * their pairs fits the budget.
+     */
+    public int partitionsFor(int from, int to) {
+        long partitions = (PairCounter.pairCount(from, to) + keysPerTable - 1) / keysPerTable;
+        if (partitions <= 1) {
+            return 1;
+        }
+        return (int) Math.min(maxPartitions, Long.highestOneBit(partitions - 1) << 1);
+    }
+
+    /**
+     * The number of partitions of the last run, 1 if it was counted in memory, 0 before the first run.
+     */
+    public int getLastPartitions() {
+        return lastPartitions;
+    }
+
+    /**
+     * The number of partition files of the last run, the partitions split again included; 0 if it ran in memory.
+     */
+    public int getLastFiles() {
+        return lastFiles;
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        lastPartitions = 1;
+        lastFiles = 0;
+        switch (PlanningCounter.plan(xs, ys, from, to)) {
+            case PIGEONHOLE:
+                return PairCounter.pairCount(from, to) >= 3;
+            case DENSE:
+                if (dense == null) {
+                    dense = new DenseCounter(DenseCounter.MAX_DELTA);
+                }
+                long pairs = dense.pairsExamined();
+                long keys = dense.keysCounted();
+                boolean answer = dense.hasTriple(xs, ys, from, to, stop);
+                pairsExamined += dense.pairsExamined() - pairs;
+                keysCounted += dense.keysCounted() - keys;
+                return answer;
+            default:
+                break;
+        }
+        int partitions = partitionsFor(from, to);
+        lastPartitions = partitions;
+        if (partitions == 1) {
+            return countInMemory(xs, ys, from, to, stop);
+        }
+        Path spillDirectory = null;
+        FileChannel[] channels = new FileChannel[partitions];
+        try {
+            spillDirectory = directory == null
+                    ? Files.createTempDirectory("stanc-spill")
+                    : Files.createTempDirectory(directory, "stanc-spill");
+            LIVE_DIRECTORIES.add(spillDirectory);
+            openPartitions(spillDirectory, channels);
+            ByteBuffer[] buffers = new ByteBuffer[maxPartitions + 1];
+            for (int b = 0; b < buffers.length; b++) {
+                buffers[b] = ByteBuffer.allocate(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+            }
+            spill(xs, ys, from, to, channels, buffers, stop);
+            pairsExamined += PairCounter.pairCount(from, to);
+            int shift = Integer.numberOfTrailingZeros(partitions);
+            for (FileChannel channel : channels) {
+                if (countPartition(spillDirectory, channel, shift, buffers, stop)) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            counts.clear();
+            for (FileChannel channel : channels) {
+                closeQuietly(channel);
+            }
+            if (spillDirectory != null) {
+                deleteQuietly(spillDirectory);
+                LIVE_DIRECTORIES.remove(spillDirectory);
+            }
+        }
+    }
+
+    /**
+     * The HashCounter loop, on the table of the partitions.
+     */
+    private boolean countInMemory(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        counts.clear();
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                if (counts.addTo(HashCounter.key(x, y, xs[j], ys[j]), 1) == 3) {
+                    pairsExamined += PairCounter.pairsUpTo(from, to, i, j);
+                    keysCounted += counts.size();
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        keysCounted += counts.size();
+        return false;
+    }
+
+    private void openPartitions(Path spillDirectory, FileChannel[] channels) throws IOException {
+        for (int p = 0; p < channels.length; p++) {
+            channels[p] = FileChannel.open(spillDirectory.resolve("partition-" + lastFiles++ + ".bin"),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        }
+    }
+
+    /**
+     * The partition of key among 2^bits, from the bits of its hash after the first shift ones.
+     */
+    private static int partition(long key, int shift, int bits) {
+        // not the multiplier of LongIntHashMap, so the keys of a partition still spread over its table
+        return (int) (((key * HASH_MULTIPLIER) << shift) >>> (64 - bits));
+    }
+
+    private void spill(int[] xs, int[] ys, int from, int to, FileChannel[] channels, ByteBuffer[] buffers,
+                       StopSignal stop) throws IOException {
+        int bits = Integer.numberOfTrailingZeros(channels.length);
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                long key = HashCounter.key(x, y, xs[j], ys[j]);
+                int partition = partition(key, 0, bits);
+                ByteBuffer buffer = buffers[partition];
+                buffer.putLong(key);
+                if (!buffer.hasRemaining()) {
+                    write(channels[partition], buffer);
+                }
+            }
+        }
+        for (int p = 0; p < channels.length; p++) {
+            write(channels[p], buffers[p]);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Fills the read buffer from position of channel, returns the number of bytes read.
+     */
+    private static int read(FileChannel channel, long position, long size, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining() && position + buffer.position() < size) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining();
+    }
+
+    /**
+     * Counts the keys of one partition, returns true if one of them reaches 3 pairs. A partition with more distinct
+     * keys than the table takes is split into maxPartitions files on the next bits of the hash, counted one by one.
+     */
+    private boolean countPartition(Path spillDirectory, FileChannel channel, int shift, ByteBuffer[] buffers,
+                                   StopSignal stop) throws IOException {
+        ByteBuffer buffer = buffers[maxPartitions];
+        long size = channel.size();
+        boolean overflow = false;
+        counts.clear();
+        try {
+            long position = 0;
+            while (position < size && !overflow) {
+                stop.check();
+                position += read(channel, position, size, buffer);
+                while (buffer.remaining() >= Long.BYTES) {
+                    if (counts.addTo(buffer.getLong(), 1) == 3) {
+                        return true;
+                    }
+                }
+                // keys past the 64 bits of the hash can't be split further, they go over the budget
+                overflow = counts.size() > keysPerTable && shift < Long.SIZE;
+            }
+        } finally {
+            // the keys of a partition split again are counted by its children
+            if (!overflow) {
+                keysCounted += counts.size();
+            }
+            counts.clear();
+        }
+        if (!overflow) {
+            return false;
+        }
+
+        int bits = Math.min(Integer.numberOfTrailingZeros(maxPartitions), Long.SIZE - shift);
+        FileChannel[] channels = new FileChannel[1 << bits];
+        try {
+            openPartitions(spillDirectory, channels);
+            long position = 0;
+            while (position < size) {
+                stop.check();
+                position += read(channel, position, size, buffer);
+                while (buffer.remaining() >= Long.BYTES) {
+                    long key = buffer.getLong();
+                    int partition = partition(key, shift, bits);
+                    buffers[partition].putLong(key);
+                    if (!buffers[partition].hasRemaining()) {
+                        write(channels[partition], buffers[partition]);
+                    }
+                }
+            }
+            for (int p = 0; p < channels.length; p++) {
+                write(channels[p], buffers[p]);
+            }
+            channel.truncate(0);
+            for (FileChannel child : channels) {
+                if (countPartition(spillDirectory, child, shift + bits, buffers, stop)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            for (FileChannel child : channels) {
+                closeQuietly(child);
+            }
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the file is deleted anyway if the close got that far, or with its directory below
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    // left for the next cleanup of the temporary directory
+                }
+            });
+        } catch (IOException ignored) {
+            // the directory is gone already
+        }
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+}
@@ -0,0 +1,46 @@
+package org.stanc.engine;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * A flag raised from another thread to stop a running PairCounter. Counters check it once per row of the pair
+ * triangle, so a run stops after at most N more pairs, by throwing a CancellationException.
+ */
+public final class StopSignal {
+
+    /**
+     * A signal that is never raised, for the runs that can't be cancelled.
+     */
+    public static final StopSignal NONE = new StopSignal(false);
+
+    private final boolean stoppable;
+    private volatile boolean stopped;
+
+    public StopSignal() {
+        this(true);
+    }
+
+    private StopSignal(boolean stoppable) {
+        this.stoppable = stoppable;
+    }
+
+    public void stop() {
+        if (!stoppable) {
+            throw new UnsupportedOperationException("StopSignal.NONE can't be stopped");
+        }
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Throws a CancellationException if the signal was raised.
+     */
+    public void check() {
+        if (stopped) {
+            throw new CancellationException("Pair counting stopped");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class ThresholdCounter:
+ * - answers a ThresholdQuery for the points [from, to) in one pass over the pairs: the multiplicity of every key is
+ * counted as in DenseCounter (bounded coordinates) or HashCounter, keeping the largest one
+ * - the pass stops once that largest multiplicity reaches the cap of the query, so of(3) costs what hasTriple costs
+ * - keeps its scratch memory between runs and is not thread safe, like the PairCounters
+ */
+public final class ThresholdCounter {
+
+    private final int width;
+    private final int[] counts;
+    private final int[] stamps;
+    private int generation;
+    private final LongIntHashMap hashCounts;
+
+    /**
+     * @param maxDelta the largest coordinate difference of the points, see ProblemLimits.maxDelta()
+     */
+    public ThresholdCounter(long maxDelta) {
+        if (maxDelta < 0) {
+            throw new IllegalArgumentException("maxDelta should not be negative, got " + maxDelta);
+        }
+        if (maxDelta <= DenseCounter.MAX_DELTA) {
+            width = (int) maxDelta + 1;
+            counts = new int[width * width];
+            stamps = new int[width * width];
+            hashCounts = null;
+        } else {
+            width = 0;
+            counts = null;
+            stamps = null;
+            hashCounts = new LongIntHashMap();
+        }
+    }
+
+    public ThresholdResult count(int[] xs, int[] ys, int from, int to, ThresholdQuery query) {
+        return count(xs, ys, from, to, query, StopSignal.NONE);
+    }
+
+    /**
+     * Same as count(xs, ys, from, to, query), but throws a CancellationException once stop is raised, checked once
+     * per row of pairs.
+     */
+    public ThresholdResult count(int[] xs, int[] ys, int from, int to, ThresholdQuery query, StopSignal stop) {
+        return counts != null ? countDense(xs, ys, from, to, query.getCap(), stop)
+                : countHashed(xs, ys, from, to, query.getCap(), stop);
+    }
+
+    private ThresholdResult countDense(int[] xs, int[] ys, int from, int to, int cap, StopSignal stop) {
+        int gen = nextGeneration();
+        int max = 0;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            int x = xs[i];
+            int y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                int key = Math.abs(x - xs[j]) * width + Math.abs(y - ys[j]);
+                int count;
+                if (stamps[key] != gen) {
+                    stamps[key] = gen;
+                    count = counts[key] = 1;
+                } else {
+                    count = ++counts[key];
+                }
+                if (count > max) {
+                    max = count;
+                    if (max >= cap) {
+                        return new ThresholdResult(max, cap, PairCounter.pairsUpTo(from, to, i, j));
+                    }
+                }
+            }
+        }
+        return new ThresholdResult(max, cap, PairCounter.pairCount(from, to));
+    }
+
+    private ThresholdResult countHashed(int[] xs, int[] ys, int from, int to, int cap, StopSignal stop) {
+        hashCounts.clear();
+        int max = 0;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            long x = xs[i];
+            long y = ys[i];
+            for (int j = i + 1; j < to; j++) {
+                int count = hashCounts.addTo(HashCounter.key(x, y, xs[j], ys[j]), 1);
+                if (count > max) {
+                    max = count;
+                    if (max >= cap) {
+                        return new ThresholdResult(max, cap, PairCounter.pairsUpTo(from, to, i, j));
+                    }
+                }
+            }
+        }
+        return new ThresholdResult(max, cap, PairCounter.pairCount(from, to));
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+}
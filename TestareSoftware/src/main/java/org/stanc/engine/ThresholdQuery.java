@@ -0,0 +1,69 @@
+package org.stanc.engine;
+
+import java.util.Arrays;
+
+/**
+ * class ThresholdQuery:
+ * - the thresholds k asked about a subproblem: is some (|dx|, |dy|) key shared by at least k pairs of points?
+ * - the question of Problem.solve() is of(3); any set of thresholds is answered in one pass over the pairs, which
+ * stops as soon as the largest one is reached
+ * - the maximum multiplicity of the keys comes with the answers, exact below the largest threshold;
+ * exactMaxMultiplicity() asks for it without a threshold, so every pair is visited
+ */
+public final class ThresholdQuery {
+
+    private static final ThresholdQuery EXACT = new ThresholdQuery(new int[0]);
+
+    private final int[] thresholds;
+
+    private ThresholdQuery(int[] thresholds) {
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * The thresholds, in any order and possibly repeated, should be positive.
+     */
+    public static ThresholdQuery of(int... thresholds) {
+        if (thresholds.length == 0) {
+            throw new IllegalArgumentException("At least one threshold is needed, see exactMaxMultiplicity()");
+        }
+        int[] sorted = Arrays.stream(thresholds).sorted().distinct().toArray();
+        if (sorted[0] < 1) {
+            throw new IllegalArgumentException("Thresholds should be positive, got " + sorted[0]);
+        }
+        return new ThresholdQuery(sorted);
+    }
+
+    public static ThresholdQuery exactMaxMultiplicity() {
+        return EXACT;
+    }
+
+    /**
+     * The distinct thresholds, ascending.
+     */
+    public int[] getThresholds() {
+        return thresholds.clone();
+    }
+
+    /**
+     * The multiplicity at which counting stops: the largest threshold, Integer.MAX_VALUE without thresholds.
+     */
+    public int getCap() {
+        return thresholds.length == 0 ? Integer.MAX_VALUE : thresholds[thresholds.length - 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || o instanceof ThresholdQuery && Arrays.equals(thresholds, ((ThresholdQuery) o).thresholds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(thresholds);
+    }
+
+    @Override
+    public String toString() {
+        return thresholds.length == 0 ? "ThresholdQuery[exact]" : "ThresholdQuery" + Arrays.toString(thresholds);
+    }
+}
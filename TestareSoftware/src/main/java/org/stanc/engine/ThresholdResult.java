@@ -0,0 +1,57 @@
+package org.stanc.engine;
+
+/**
+ * class ThresholdResult:
+ * - the answer of a ThresholdQuery for one subproblem: the largest number of pairs sharing a (|dx|, |dy|) key,
+ * counted up to the cap of the query
+ * - reaches(k) answers the threshold k, for any k up to the cap, asked in the query or not
+ */
+public final class ThresholdResult {
+
+    private final int maxMultiplicity;
+    private final int cap;
+    private final long pairsExamined;
+
+    ThresholdResult(int maxMultiplicity, int cap, long pairsExamined) {
+        this.maxMultiplicity = maxMultiplicity;
+        this.cap = cap;
+        this.pairsExamined = pairsExamined;
+    }
+
+    /**
+     * The largest multiplicity of a key, exact if isCapped() is false, else only known to be at least the cap.
+     */
+    public int getMaxMultiplicity() {
+        return maxMultiplicity;
+    }
+
+    /**
+     * True if counting stopped at the cap of the query, so the real maximum multiplicity may be larger.
+     */
+    public boolean isCapped() {
+        return maxMultiplicity >= cap;
+    }
+
+    /**
+     * Returns true if some key is shared by at least k pairs. Throws an IllegalArgumentException if k is above the cap
+     * of the query, since counting may have stopped before.
+     */
+    public boolean reaches(int k) {
+        if (k > cap) {
+            throw new IllegalArgumentException("Threshold " + k + " is above the largest one of the query, " + cap);
+        }
+        return maxMultiplicity >= k;
+    }
+
+    /**
+     * The pairs visited before the cap was reached, all of them if it wasn't.
+     */
+    public long getPairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public String toString() {
+        return (isCapped() ? ">=" : "") + maxMultiplicity;
+    }
+}
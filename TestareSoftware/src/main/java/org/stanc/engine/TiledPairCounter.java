@@ -0,0 +1,236 @@
+package org.stanc.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * class TiledPairCounter:
+ * - counts the pairs of a single large point set on a fork join pool: the rows i of the pair triangle are split into
+ * tiles holding about the same number of pairs (row i holds n - 1 - i of them)
+ * - bounded coordinates are counted in an AtomicIntegerArray indexed like in DenseCounter; wide ones in striped
+ * LongIntHashMaps, each tile buffering its keys per stripe so a lock is taken once per batch and not once per pair
+ * - the first tile that sees a key reach 3 pairs raises a shared flag; every tile checks it before each row, so the
+ * remaining work is dropped almost immediately
+ * - point sets with few pairs are counted sequentially, the fork join overhead is not worth it there
+ * - pairsExamined() counts the pairs whose key a tile computed, so with parallel tiles it can be a bit more than a
+ * sequential run would have examined before the triple; keysCounted() the keys that reached a counter
+ */
+public final class TiledPairCounter implements PairCounter {
+
+    private static final int TILES_PER_THREAD = 8;
+    private static final long MIN_PARALLEL_PAIRS = 1 << 15;
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int BATCH = 64;
+
+    private final ForkJoinPool pool;
+    private final long maxDelta;
+    private final PairCounter sequential;
+    private long parallelPairsExamined;
+    private long parallelKeysCounted;
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     */
+    public TiledPairCounter(ForkJoinPool pool, long maxDelta) {
+        this.pool = pool;
+        this.maxDelta = maxDelta;
+        this.sequential = maxDelta <= DenseCounter.MAX_DELTA ? new DenseCounter((int) maxDelta) : new HashCounter();
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        long n = to - from;
+        long pairs = n * (n - 1) / 2;
+        if (pairs < MIN_PARALLEL_PAIRS || pool.getParallelism() < 2) {
+            return sequential.hasTriple(xs, ys, from, to, stop);
+        }
+
+        Run run = new Run(xs, ys, to, stop);
+        int tileCount = pool.getParallelism() * TILES_PER_THREAD;
+        long target = Math.max(1, pairs / tileCount);
+        List<Tile> tiles = new ArrayList<>(tileCount + 1);
+        int tileStart = from;
+        long tilePairs = 0;
+        for (int i = from; i < to - 1; i++) {
+            tilePairs += to - 1 - i;
+            if (tilePairs >= target || i == to - 2) {
+                tiles.add(new Tile(run, tileStart, i + 1));
+                tileStart = i + 1;
+                tilePairs = 0;
+            }
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tiles);
+            }
+        });
+        stop.check();
+        parallelPairsExamined += run.pairs.sum();
+        if (run.stripes != null) {
+            for (LongIntHashMap stripe : run.stripes) {
+                parallelKeysCounted += stripe.size();
+            }
+        } else {
+            parallelKeysCounted += run.keys.sum();
+        }
+        return run.found.get();
+    }
+
+    @Override
+    public long pairsExamined() {
+        return parallelPairsExamined + sequential.pairsExamined();
+    }
+
+    @Override
+    public long keysCounted() {
+        return parallelKeysCounted + sequential.keysCounted();
+    }
+
+    /**
+     * The shared state of one hasTriple call.
+     */
+    private final class Run {
+
+        final int[] xs;
+        final int[] ys;
+        final int end;
+        final StopSignal stop;
+        final AtomicBoolean found = new AtomicBoolean();
+        final LongAdder pairs = new LongAdder();
+        final LongAdder keys = new LongAdder();
+        final int width;
+        final AtomicIntegerArray denseCounts;
+        final LongIntHashMap[] stripes;
+
+        Run(int[] xs, int[] ys, int end, StopSignal stop) {
+            this.xs = xs;
+            this.ys = ys;
+            this.end = end;
+            this.stop = stop;
+            if (maxDelta <= DenseCounter.MAX_DELTA) {
+                width = (int) maxDelta + 1;
+                denseCounts = new AtomicIntegerArray(width * width);
+                stripes = null;
+            } else {
+                width = 0;
+                denseCounts = null;
+                stripes = new LongIntHashMap[STRIPES];
+                for (int s = 0; s < STRIPES; s++) {
+                    stripes[s] = new LongIntHashMap();
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial") // forked, never serialized
+    private static final class Tile extends RecursiveAction {
+
+        private final Run run;
+        private final int fromRow;
+        private final int toRow;
+
+        Tile(Run run, int fromRow, int toRow) {
+            this.run = run;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+        }
+
+        @Override
+        protected void compute() {
+            run.pairs.add(run.denseCounts != null ? countDense() : countStriped());
+        }
+
+        /**
+         * Returns the number of pairs examined.
+         */
+        private long countDense() {
+            int[] xs = run.xs;
+            int[] ys = run.ys;
+            int end = run.end;
+            int width = run.width;
+            AtomicIntegerArray counts = run.denseCounts;
+            long pairs = 0;
+            long keys = 0;
+            try {
+                for (int i = fromRow; i < toRow; i++) {
+                    if (run.found.get() || run.stop.isStopped()) {
+                        return pairs;
+                    }
+                    int x = xs[i];
+                    int y = ys[i];
+                    for (int j = i + 1; j < end; j++) {
+                        int count = counts.incrementAndGet(Math.abs(x - xs[j]) * width + Math.abs(y - ys[j]));
+                        if (count == 1) {
+                            keys++;
+                        } else if (count == 3) {
+                            run.found.set(true);
+                            return pairs + j - i;
+                        }
+                    }
+                    pairs += end - 1 - i;
+                }
+                return pairs;
+            } finally {
+                run.keys.add(keys);
+            }
+        }
+
+        /**
+         * Returns the number of pairs examined.
+         */
+        private long countStriped() {
+            int[] xs = run.xs;
+            int[] ys = run.ys;
+            int end = run.end;
+            long[][] buffers = new long[STRIPES][BATCH];
+            int[] lengths = new int[STRIPES];
+            long pairs = 0;
+            for (int i = fromRow; i < toRow; i++) {
+                if (run.found.get() || run.stop.isStopped()) {
+                    return pairs;
+                }
+                long x = xs[i];
+                long y = ys[i];
+                for (int j = i + 1; j < end; j++) {
+                    long key = HashCounter.key(x, y, xs[j], ys[j]);
+                    int stripe = (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - STRIPE_BITS));
+                    buffers[stripe][lengths[stripe]++] = key;
+                    if (lengths[stripe] == BATCH) {
+                        if (flush(stripe, buffers[stripe], BATCH)) {
+                            return pairs + j - i;
+                        }
+                        lengths[stripe] = 0;
+                    }
+                }
+                pairs += end - 1 - i;
+            }
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                if (lengths[stripe] > 0 && flush(stripe, buffers[stripe], lengths[stripe])) {
+                    return pairs;
+                }
+            }
+            return pairs;
+        }
+
+        private boolean flush(int stripe, long[] keys, int length) {
+            LongIntHashMap counts = run.stripes[stripe];
+            synchronized (counts) {
+                for (int k = 0; k < length; k++) {
+                    if (counts.addTo(keys[k], 1) == 3) {
+                        run.found.set(true);
+                        return true;
+                    }
+                }
+            }
+            return run.found.get();
+        }
+    }
+}
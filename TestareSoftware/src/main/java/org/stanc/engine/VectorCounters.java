@@ -0,0 +1,32 @@
+package org.stanc.engine;
+
+/**
+ * Creates the pair counter for a coordinate range. On Java 11 these are the scalar DenseCounter and HashCounter; the
+ * Java 21 version of this class (src/main/java21) returns a VectorPairCounter when jdk.incubator.vector is there.
+ */
+public final class VectorCounters {
+
+    private VectorCounters() {
+    }
+
+    /**
+     * True if newCounter() returns a vectorized counter.
+     */
+    public static boolean isAvailable() {
+        return false;
+    }
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     */
+    public static PairCounter newCounter(long maxDelta) {
+        return newScalarCounter(maxDelta);
+    }
+
+    /**
+     * A DenseCounter if the range allows it, a HashCounter otherwise.
+     */
+    public static PairCounter newScalarCounter(long maxDelta) {
+        return maxDelta <= DenseCounter.MAX_DELTA ? new DenseCounter((int) maxDelta) : new HashCounter();
+    }
+}
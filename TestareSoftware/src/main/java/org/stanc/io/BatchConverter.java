@@ -0,0 +1,42 @@
+package org.stanc.io;
+
+import org.stanc.ProblemLimits;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts a batch from the text format (optionally gzipped) to the binary batch format.
+ * A conversion failing partway (a parse or bounds error) leaves no binary file behind.
+ */
+public final class BatchConverter {
+
+    private BatchConverter() {
+    }
+
+    /**
+     * Returns the number of subproblems converted.
+     */
+    public static int convert(Path text, Path binary, ColumnEncoding encoding, ProblemLimits limits) throws IOException {
+        try (ProblemReader reader = ProblemReader.open(text);
+             BatchWriter writer = BatchWriter.create(binary, encoding)) {
+            int count = reader.read(limits, writer);
+            writer.finish();
+            return count;
+        }
+    }
+
+    /**
+     * Usage: BatchConverter input.txt[.gz] output.bin [FIXED | VARINT_DELTA]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BatchConverter input.txt[.gz] output.bin [FIXED | VARINT_DELTA]");
+            System.exit(2);
+        }
+        ColumnEncoding encoding = args.length > 2 ? ColumnEncoding.valueOf(args[2]) : ColumnEncoding.VARINT_DELTA;
+        int count = convert(Paths.get(args[0]), Paths.get(args[1]), encoding, ProblemLimits.unbounded());
+        System.err.println("Converted " + count + " subproblems");
+    }
+}
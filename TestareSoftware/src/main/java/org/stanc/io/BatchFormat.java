@@ -0,0 +1,38 @@
+package org.stanc.io;
+
+/**
+ * The binary batch format written by BatchWriter and read by MappedBatch, all numbers little endian:
+ * - header (24 bytes): int magic "PTSB", short version, short encoding, int T, int reserved, long offset of the table
+ * - the blocks of the subproblems, one after the other: the x column, then the y column
+ * - table (16 bytes per subproblem): long offset of the block, int N, int length of the block in bytes
+ * The table is written last, so a batch can be converted while it is parsed, without knowing T in advance.
+ */
+final class BatchFormat {
+
+    static final int MAGIC = 0x42535450;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int ENTRY_SIZE = 16;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int ENCODING_OFFSET = 6;
+    static final int COUNT_OFFSET = 8;
+    static final int TABLE_OFFSET = 16;
+
+    /**
+     * The most bytes of one VARINT_DELTA value, a zigzagged long in groups of 7 bits.
+     */
+    static final int MAX_VARINT_BYTES = 10;
+
+    private BatchFormat() {
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
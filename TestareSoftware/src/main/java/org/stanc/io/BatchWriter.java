@@ -0,0 +1,159 @@
+package org.stanc.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * class BatchWriter:
+ * - writes subproblems in the binary batch format (see BatchFormat) through a buffered FileChannel
+ * - it is a SubProblemHandler, so a text batch is converted while it is parsed: ProblemReader.read(limits, writer)
+ * - only the offset table (16 bytes per subproblem) is kept in memory until finish() writes it
+ * - the header is written last, by finish(): closing the writer without finishing it (after a failed conversion)
+ * deletes the file, so no truncated batch can pass for a complete one
+ */
+public final class BatchWriter implements SubProblemHandler, Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ColumnEncoding encoding;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+
+    private long[] offsets = new long[16];
+    private int[] counts = new int[16];
+    private int[] lengths = new int[16];
+    private int size;
+    private boolean finished;
+
+    private BatchWriter(Path path, FileChannel channel, ColumnEncoding encoding) {
+        this.path = path;
+        this.channel = channel;
+        this.encoding = encoding;
+    }
+
+    public static BatchWriter create(Path path, ColumnEncoding encoding) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        BatchWriter writer = new BatchWriter(path, channel, encoding);
+        writer.buffer.put(new byte[BatchFormat.HEADER_SIZE]);
+        writer.position = BatchFormat.HEADER_SIZE;
+        return writer;
+    }
+
+    @Override
+    public void accept(int subProblemIndex, int[] xs, int[] ys, int n) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The batch is finished");
+        }
+        if (subProblemIndex != size) {
+            throw new IllegalArgumentException("Subproblems should be written in order, expected " + size +
+                    " but got " + subProblemIndex);
+        }
+        long start = position;
+        writeColumn(xs, n);
+        writeColumn(ys, n);
+        long length = position - start;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Subproblem " + subProblemIndex + " is too big for the batch format");
+        }
+        if (size == offsets.length) {
+            offsets = Arrays.copyOf(offsets, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        offsets[size] = start;
+        counts[size] = n;
+        lengths[size] = (int) length;
+        size++;
+    }
+
+    private void writeColumn(int[] values, int n) throws IOException {
+        if (encoding == ColumnEncoding.FIXED) {
+            for (int i = 0; i < n; i++) {
+                ensureRemaining(Integer.BYTES);
+                buffer.putInt(values[i]);
+            }
+            position += (long) n * Integer.BYTES;
+            return;
+        }
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            ensureRemaining(BatchFormat.MAX_VARINT_BYTES);
+            long value = BatchFormat.zigzag(values[i] - previous);
+            previous = values[i];
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+                position++;
+            }
+            buffer.put((byte) value);
+            position++;
+        }
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the offset table, then the header: the batch is complete. Called once, after the last subproblem.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("The batch is finished");
+        }
+        long tableOffset = position;
+        for (int i = 0; i < size; i++) {
+            ensureRemaining(BatchFormat.ENTRY_SIZE);
+            buffer.putLong(offsets[i]).putInt(counts[i]).putInt(lengths[i]);
+        }
+        flush();
+
+        ByteBuffer header = ByteBuffer.allocate(BatchFormat.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(BatchFormat.MAGIC)
+                .putShort(BatchFormat.VERSION)
+                .putShort((short) encoding.ordinal())
+                .putInt(size)
+                .putInt(0)
+                .putLong(tableOffset)
+                .flip();
+        long headerPosition = 0;
+        while (header.hasRemaining()) {
+            headerPosition += channel.write(header, headerPosition);
+        }
+        finished = true;
+    }
+
+    /**
+     * Closes the file, and deletes it unless finish() completed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            if (!finished) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.stanc.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * class ByteTokenizer:
+ * - reads whitespace separated decimal ints straight from the bytes of a channel, through a reused ByteBuffer
+ * - no String, no Scanner, no allocation per token
+ */
+final class ByteTokenizer {
+
+    static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private long position;
+
+    ByteTokenizer(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buffer.flip();
+    }
+
+    int nextInt() throws IOException {
+        int b = read();
+        while (b >= 0 && isWhitespace((byte) b)) {
+            b = read();
+        }
+        if (b < 0) {
+            throw new EOFException("Unexpected end of input at byte " + position + ", expected an integer");
+        }
+        long start = position - 1;
+        boolean negative = b == '-';
+        if (negative) {
+            b = read();
+        }
+        if (b < '0' || b > '9') {
+            throw new IOException("Expected an integer at byte " + start);
+        }
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new IOException("Integer out of range at byte " + start);
+            }
+            b = read();
+        }
+        if (b >= 0 && !isWhitespace((byte) b)) {
+            throw new IOException("Expected an integer at byte " + start);
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("Integer out of range at byte " + start);
+        }
+        return (int) value;
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        position++;
+        return buffer.get() & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        buffer.flip();
+        return read > 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
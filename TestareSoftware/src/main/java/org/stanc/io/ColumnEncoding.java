@@ -0,0 +1,13 @@
+package org.stanc.io;
+
+/**
+ * How the x and y columns of a subproblem are stored in the binary batch format:
+ * - FIXED: 4 bytes little endian per coordinate, can be bulk copied
+ * - VARINT_DELTA: the difference to the previous coordinate of the same column, zigzag encoded as a varint; small
+ * and sorted-ish coordinates take 1 or 2 bytes
+ */
+public enum ColumnEncoding {
+
+    FIXED,
+    VARINT_DELTA
+}
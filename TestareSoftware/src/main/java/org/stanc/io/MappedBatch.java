@@ -0,0 +1,208 @@
+package org.stanc.io;
+
+import org.stanc.ProblemLimits;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * class MappedBatch:
+ * - reads a binary batch (see BatchFormat) through FileChannel.map, with random access to any subproblem through the
+ * offset table
+ * - the file is mapped in windows of 1 GB, created on first use; a block crossing the end of its window is mapped on
+ * its own
+ * - coordinates are decoded straight from the mapped bytes into primitive arrays, no Point is created; FIXED columns
+ * are a bulk copy
+ * - a block that doesn't match the N and the encoding of its table entry throws an IOException naming the subproblem
+ */
+public final class MappedBatch implements SubProblemSource {
+
+    private static final int WINDOW_BITS = 30;
+    private static final long WINDOW_SIZE = 1L << WINDOW_BITS;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final ColumnEncoding encoding;
+    private final int size;
+    private final ByteBuffer table;
+    private final MappedByteBuffer[] windows;
+
+    private int[] xs = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+    private int[] ys = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+
+    private MappedBatch(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        if (fileSize < BatchFormat.HEADER_SIZE) {
+            throw new IOException("Not a batch file: too short");
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BatchFormat.HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(BatchFormat.MAGIC_OFFSET) != BatchFormat.MAGIC) {
+            throw new IOException("Not a batch file: bad magic number");
+        }
+        if (header.getShort(BatchFormat.VERSION_OFFSET) != BatchFormat.VERSION) {
+            throw new IOException("Unsupported batch file version " + header.getShort(BatchFormat.VERSION_OFFSET));
+        }
+        short encoding = header.getShort(BatchFormat.ENCODING_OFFSET);
+        if (encoding < 0 || encoding >= ColumnEncoding.values().length) {
+            throw new IOException("Not a batch file: unknown column encoding " + encoding);
+        }
+        this.encoding = ColumnEncoding.values()[encoding];
+        this.size = header.getInt(BatchFormat.COUNT_OFFSET);
+        long tableOffset = header.getLong(BatchFormat.TABLE_OFFSET);
+        long tableLength = (long) size * BatchFormat.ENTRY_SIZE;
+        if (size < 0 || tableLength > Integer.MAX_VALUE || tableOffset + tableLength > fileSize) {
+            throw new IOException("Not a batch file: bad offset table");
+        }
+        this.table = channel.map(FileChannel.MapMode.READ_ONLY, tableOffset, tableLength).order(ByteOrder.LITTLE_ENDIAN);
+        this.windows = new MappedByteBuffer[(int) ((fileSize + WINDOW_SIZE - 1) >>> WINDOW_BITS)];
+    }
+
+    public static MappedBatch open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedBatch(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ColumnEncoding getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * The number of points N of subproblem i, read from the offset table.
+     */
+    public int pointCount(int subProblemIndex) {
+        return table.getInt(entry(subProblemIndex) + 8);
+    }
+
+    /**
+     * Decodes subproblem i into xs and ys, which should hold at least pointCount(i) values. Returns that count.
+     */
+    public int load(int subProblemIndex, int[] xs, int[] ys) throws IOException {
+        int entry = entry(subProblemIndex);
+        long offset = table.getLong(entry);
+        int n = table.getInt(entry + 8);
+        int length = table.getInt(entry + 12);
+        long values = 2L * Math.max(0, n);
+        boolean validLength = encoding == ColumnEncoding.FIXED
+                ? length == values * Integer.BYTES
+                : length >= values && length <= values * BatchFormat.MAX_VARINT_BYTES;
+        if (n < 0 || !validLength) {
+            throw new IOException("Bad block for subproblem " + subProblemIndex + ": " + length + " bytes for " + n
+                    + " " + encoding + " points");
+        }
+        ByteBuffer block = block(offset, length);
+        if (encoding == ColumnEncoding.FIXED) {
+            block.asIntBuffer().get(xs, 0, n);
+            block.position(block.position() + n * Integer.BYTES);
+            block.asIntBuffer().get(ys, 0, n);
+        } else if (!readVarintColumn(block, xs, n) || !readVarintColumn(block, ys, n) || block.hasRemaining()) {
+            throw new IOException("Bad block for subproblem " + subProblemIndex + ": corrupt " + encoding
+                    + " columns");
+        }
+        return n;
+    }
+
+    @Override
+    public int read(ProblemLimits limits, SubProblemHandler handler) throws IOException {
+        if (!limits.isValidSubProblemsCount(size)) {
+            throw new RuntimeException(limits.subProblemsMessage());
+        }
+        for (int i = 0; i < size; i++) {
+            read(i, limits, handler);
+        }
+        return size;
+    }
+
+    /**
+     * Hands subproblem i alone to the handler, validated against the limits, without reading the ones before it.
+     */
+    public void read(int subProblemIndex, ProblemLimits limits, SubProblemHandler handler) throws IOException {
+        int n = pointCount(subProblemIndex);
+        if (!limits.isValidPointsCount(n)) {
+            throw new RuntimeException(limits.pointsMessage(subProblemIndex));
+        }
+        if (xs.length < n) {
+            xs = new int[n];
+            ys = new int[n];
+        }
+        load(subProblemIndex, xs, ys);
+        for (int i = 0; i < n; i++) {
+            if (!limits.isValidCoordinate(xs[i]) || !limits.isValidCoordinate(ys[i])) {
+                throw new RuntimeException(limits.coordinatesMessage(subProblemIndex, i));
+            }
+        }
+        handler.accept(subProblemIndex, xs, ys, n);
+    }
+
+    private int entry(int subProblemIndex) {
+        if (subProblemIndex < 0 || subProblemIndex >= size) {
+            throw new IndexOutOfBoundsException("Subproblem " + subProblemIndex + " of " + size);
+        }
+        return subProblemIndex * BatchFormat.ENTRY_SIZE;
+    }
+
+    private ByteBuffer block(long offset, int length) throws IOException {
+        if (offset < 0 || offset + length > fileSize) {
+            throw new IOException("Block outside of the batch file at offset " + offset);
+        }
+        int window = (int) (offset >>> WINDOW_BITS);
+        long windowStart = (long) window << WINDOW_BITS;
+        if (offset + length > windowStart + WINDOW_SIZE) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (windows[window] == null) {
+            windows[window] = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                    Math.min(WINDOW_SIZE, fileSize - windowStart));
+        }
+        ByteBuffer block = windows[window].duplicate();
+        block.position((int) (offset - windowStart)).limit((int) (offset - windowStart) + length);
+        return block.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes n values, returns false if the column runs past the block, has a value longer than MAX_VARINT_BYTES or
+     * one that isn't an int.
+     */
+    private static boolean readVarintColumn(ByteBuffer block, int[] values, int n) {
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            long raw = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if (!block.hasRemaining() || shift >= 7 * BatchFormat.MAX_VARINT_BYTES) {
+                    return false;
+                }
+                b = block.get();
+                raw |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            previous += BatchFormat.unzigzag(raw);
+            if (previous != (int) previous) {
+                return false;
+            }
+            values[i] = (int) previous;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,112 @@
+package org.stanc.io;
+
+import org.stanc.ProblemLimits;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * class ProblemReader:
+ * - reads the text input format: the number of subproblems T, then for every subproblem the number of points N
+ * followed by the N pairs of coordinates x y, all separated by whitespace
+ * - subproblems are validated against the given ProblemLimits with the same messages as Problem.solve() and handed
+ * to a SubProblemHandler one at a time, so memory stays proportional to the biggest subproblem and not to the file
+ * - gzip input is detected from its magic bytes
+ */
+public final class ProblemReader implements SubProblemSource {
+
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+
+    private final ReadableByteChannel channel;
+    private final ByteTokenizer tokenizer;
+    private int[] xs = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+    private int[] ys = new int[ProblemLimits.DEFAULT.getMaxPoints()];
+
+    ProblemReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.tokenizer = new ByteTokenizer(channel, bufferSize);
+    }
+
+    /**
+     * Opens a text file, or a gzipped one.
+     */
+    public static ProblemReader open(Path path) throws IOException {
+        boolean gzip;
+        try (InputStream head = Files.newInputStream(path)) {
+            gzip = head.read() == GZIP_MAGIC_1 && head.read() == GZIP_MAGIC_2;
+        }
+        if (gzip) {
+            // straight to a channel: of(InputStream) would sniff the decompressed bytes again
+            return of(Channels.newChannel(new GZIPInputStream(Files.newInputStream(path),
+                    ByteTokenizer.DEFAULT_BUFFER_SIZE)));
+        }
+        return of(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Reads a text stream, or a gzipped one, e.g. System.in.
+     */
+    public static ProblemReader of(InputStream in) throws IOException {
+        InputStream buffered = new BufferedInputStream(in, ByteTokenizer.DEFAULT_BUFFER_SIZE);
+        buffered.mark(2);
+        boolean gzip = buffered.read() == GZIP_MAGIC_1 && buffered.read() == GZIP_MAGIC_2;
+        buffered.reset();
+        return of(Channels.newChannel(gzip ? new GZIPInputStream(buffered, ByteTokenizer.DEFAULT_BUFFER_SIZE) : buffered));
+    }
+
+    public static ProblemReader of(ReadableByteChannel channel) {
+        return new ProblemReader(channel, ByteTokenizer.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Reads the whole input, handing every subproblem to the handler, and returns the number of subproblems.
+     * Invalid bounds throw a RuntimeException with the limits message, malformed text an IOException.
+     */
+    @Override
+    public int read(ProblemLimits limits, SubProblemHandler handler) throws IOException {
+        int count = tokenizer.nextInt();
+        if (!limits.isValidSubProblemsCount(count)) {
+            throw new RuntimeException(limits.subProblemsMessage());
+        }
+        for (int s = 0; s < count; s++) {
+            int n = tokenizer.nextInt();
+            if (!limits.isValidPointsCount(n)) {
+                throw new RuntimeException(limits.pointsMessage(s));
+            }
+            ensureCapacity(n);
+            for (int i = 0; i < n; i++) {
+                int x = tokenizer.nextInt();
+                int y = tokenizer.nextInt();
+                if (!limits.isValidCoordinate(x) || !limits.isValidCoordinate(y)) {
+                    throw new RuntimeException(limits.coordinatesMessage(s, i));
+                }
+                xs[i] = x;
+                ys[i] = y;
+            }
+            handler.accept(s, xs, ys, n);
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int n) {
+        if (xs.length < n) {
+            int capacity = Math.max(n, (int) Math.min(Integer.MAX_VALUE - 8, xs.length * 2L));
+            xs = new int[capacity];
+            ys = new int[capacity];
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
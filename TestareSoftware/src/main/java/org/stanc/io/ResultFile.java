@@ -0,0 +1,102 @@
+package org.stanc.io;
+
+import org.stanc.SolveResults;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * class ResultFile:
+ * - writes and reads SolveResults in a compact binary form, all numbers little endian:
+ * header (16 bytes): int magic "RSLT", short version, short reserved, long T; then the (T + 63) / 64 answer words and
+ * as many words of the validity mask
+ * - 2 bits per subproblem on disk, a million answers take 250 KB; the details of the errors are not stored, only
+ * their bit in the mask
+ */
+public final class ResultFile {
+
+    static final int MAGIC = 0x544C5352;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    private static final int BUFFER_WORDS = 1 << 13;
+
+    private ResultFile() {
+    }
+
+    public static void write(SolveResults results, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(results.size()).flip();
+            writeFully(channel, header);
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            writeWords(channel, buffer, results.toAnswerWords());
+            writeWords(channel, buffer, results.toValidWords());
+        }
+    }
+
+    public static SolveResults read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a result file: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported result file version " + version + ": " + path);
+            }
+            header.getShort();
+            long size = header.getLong();
+            int words = (int) ((size + 63) >>> 6);
+            if (size < 0 || size > Integer.MAX_VALUE || channel.size() != HEADER_SIZE + 2L * words * Long.BYTES) {
+                throw new IOException("Truncated or corrupt result file: " + path);
+            }
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_WORDS * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long[] answers = readWords(channel, buffer, words);
+            long[] valid = readWords(channel, buffer, words);
+            return SolveResults.fromWords((int) size, answers, valid);
+        }
+    }
+
+    private static void writeWords(FileChannel channel, ByteBuffer buffer, long[] words) throws IOException {
+        for (int start = 0; start < words.length; start += BUFFER_WORDS) {
+            buffer.clear();
+            buffer.asLongBuffer().put(words, start, Math.min(BUFFER_WORDS, words.length - start));
+            buffer.limit(Math.min(BUFFER_WORDS, words.length - start) * Long.BYTES);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static long[] readWords(FileChannel channel, ByteBuffer buffer, int count) throws IOException {
+        long[] words = new long[count];
+        for (int start = 0; start < count; start += BUFFER_WORDS) {
+            int length = Math.min(BUFFER_WORDS, count - start);
+            buffer.clear().limit(length * Long.BYTES);
+            readFully(channel, buffer);
+            buffer.flip();
+            buffer.asLongBuffer().get(words, start, length);
+        }
+        return words;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of result file");
+            }
+        }
+    }
+}
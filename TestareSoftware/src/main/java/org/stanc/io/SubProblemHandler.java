@@ -0,0 +1,11 @@
+package org.stanc.io;
+
+/**
+ * Receives the subproblems of a ProblemReader, one at a time, as soon as they are parsed and validated.
+ * The arrays are reused for the next subproblem, so they should not be kept after the call returns.
+ */
+@FunctionalInterface
+public interface SubProblemHandler {
+
+    void accept(int subProblemIndex, int[] xs, int[] ys, int n) throws java.io.IOException;
+}
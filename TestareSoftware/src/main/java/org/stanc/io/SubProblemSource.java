@@ -0,0 +1,19 @@
+package org.stanc.io;
+
+import org.stanc.ProblemLimits;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A batch of subproblems that can be read one subproblem at a time, validated against the given limits.
+ * Closing it releases the underlying file or stream.
+ */
+public interface SubProblemSource extends Closeable {
+
+    /**
+     * Hands every subproblem to the handler, in order, and returns their number.
+     * Invalid bounds throw a RuntimeException with the limits message, like Problem.solve().
+     */
+    int read(ProblemLimits limits, SubProblemHandler handler) throws IOException;
+}
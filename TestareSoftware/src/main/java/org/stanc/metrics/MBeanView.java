@@ -0,0 +1,117 @@
+package org.stanc.metrics;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Adapts a SolverMetrics to SolverMetricsMBean, so the JMX attributes don't show in the API of SolverMetrics.
+ */
+final class MBeanView implements SolverMetricsMBean {
+
+    private final SolverMetrics metrics;
+
+    MBeanView(SolverMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public long getSubProblemsSolved() {
+        return metrics.snapshot().getSolved();
+    }
+
+    @Override
+    public long getTrueAnswers() {
+        return metrics.snapshot().getTrueAnswers();
+    }
+
+    @Override
+    public long getFalseAnswers() {
+        return metrics.snapshot().getFalseAnswers();
+    }
+
+    @Override
+    public double getTrueRatio() {
+        return metrics.snapshot().getTrueRatio();
+    }
+
+    @Override
+    public long getPairsExamined() {
+        return metrics.snapshot().getPairsExamined();
+    }
+
+    @Override
+    public long getValidationNanos() {
+        return metrics.snapshot().getValidationNanos();
+    }
+
+    @Override
+    public long getCountingNanos() {
+        return metrics.snapshot().getCountingNanos();
+    }
+
+    @Override
+    public long getSubProblemsBoundsFailures() {
+        return metrics.snapshot().getValidationFailures(ValidationFailure.SUBPROBLEMS_BOUNDS);
+    }
+
+    @Override
+    public long getPointsBoundsFailures() {
+        return metrics.snapshot().getValidationFailures(ValidationFailure.POINTS_BOUNDS);
+    }
+
+    @Override
+    public long getCoordinatesBoundsFailures() {
+        return metrics.snapshot().getValidationFailures(ValidationFailure.COORDINATES_BOUNDS);
+    }
+
+    @Override
+    public String[] getSizeBuckets() {
+        String[] labels = new String[SolverMetrics.SIZE_BUCKETS];
+        for (int b = 0; b < labels.length; b++) {
+            labels[b] = MetricsSnapshot.getBucketMinSize(b) + "-" + MetricsSnapshot.getBucketMaxSize(b);
+        }
+        return labels;
+    }
+
+    @Override
+    public long[] getSolvedBySize() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return bySize(snapshot::getSolved);
+    }
+
+    @Override
+    public long[] getPairsExaminedBySize() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return bySize(snapshot::getPairsExamined);
+    }
+
+    @Override
+    public long[] getCountingNanosBySize() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return bySize(snapshot::getCountingNanos);
+    }
+
+    @Override
+    public long[] getCountingP50NanosBySize() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return bySize(b -> snapshot.getLatencyPercentileNanos(b, 0.5));
+    }
+
+    @Override
+    public long[] getCountingP99NanosBySize() {
+        MetricsSnapshot snapshot = metrics.snapshot();
+        return bySize(b -> snapshot.getLatencyPercentileNanos(b, 0.99));
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+
+    private static long[] bySize(IntToLongFunction value) {
+        long[] values = new long[SolverMetrics.SIZE_BUCKETS];
+        for (int b = 0; b < values.length; b++) {
+            values[b] = value.applyAsLong(b);
+        }
+        return values;
+    }
+}
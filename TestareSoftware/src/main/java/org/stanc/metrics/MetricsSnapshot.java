@@ -0,0 +1,163 @@
+package org.stanc.metrics;
+
+/**
+ * class MetricsSnapshot:
+ * - the values of a SolverMetrics at some point, see SolverMetrics.snapshot()
+ * - the totals are summed over the size buckets; bucket b holds the subproblems with N in
+ * [getBucketMinSize(b), getBucketMaxSize(b)]
+ * - latency percentiles are read from the power of two histogram, so they are upper bounds within a factor of 2
+ */
+public final class MetricsSnapshot {
+
+    static final int SOLVED = 0;
+    static final int TRUE_ANSWERS = 1;
+    static final int FALSE_ANSWERS = 2;
+    static final int PAIRS_EXAMINED = 3;
+    static final int COUNTING_NANOS = 4;
+    static final int COUNTERS = 5;
+
+    private final long[][] counters;
+    private final long[][] latencies;
+    private final long[] validationFailures;
+    private final long validationNanos;
+
+    MetricsSnapshot(long[][] counters, long[][] latencies, long[] validationFailures, long validationNanos) {
+        this.counters = counters;
+        this.latencies = latencies;
+        this.validationFailures = validationFailures;
+        this.validationNanos = validationNanos;
+    }
+
+    public int getBucketCount() {
+        return counters.length;
+    }
+
+    public static int getBucketMinSize(int bucket) {
+        return bucket == 0 ? 0 : 1 << bucket;
+    }
+
+    public static int getBucketMaxSize(int bucket) {
+        return bucket >= 30 ? Integer.MAX_VALUE : (1 << (bucket + 1)) - 1;
+    }
+
+    public long getSolved() {
+        return total(SOLVED);
+    }
+
+    public long getTrueAnswers() {
+        return total(TRUE_ANSWERS);
+    }
+
+    public long getFalseAnswers() {
+        return total(FALSE_ANSWERS);
+    }
+
+    /**
+     * TRUE answers over all the answers, NaN when nothing was solved.
+     */
+    public double getTrueRatio() {
+        long solved = getSolved();
+        return solved == 0 ? Double.NaN : (double) getTrueAnswers() / solved;
+    }
+
+    public long getPairsExamined() {
+        return total(PAIRS_EXAMINED);
+    }
+
+    public long getCountingNanos() {
+        return total(COUNTING_NANOS);
+    }
+
+    public long getValidationNanos() {
+        return validationNanos;
+    }
+
+    public long getValidationFailures(ValidationFailure failure) {
+        return validationFailures[failure.ordinal()];
+    }
+
+    public long getSolved(int bucket) {
+        return counters[bucket][SOLVED];
+    }
+
+    public long getTrueAnswers(int bucket) {
+        return counters[bucket][TRUE_ANSWERS];
+    }
+
+    public long getFalseAnswers(int bucket) {
+        return counters[bucket][FALSE_ANSWERS];
+    }
+
+    public long getPairsExamined(int bucket) {
+        return counters[bucket][PAIRS_EXAMINED];
+    }
+
+    public long getCountingNanos(int bucket) {
+        return counters[bucket][COUNTING_NANOS];
+    }
+
+    /**
+     * The counting time histogram of the bucket: entry l counts the subproblems counted in [2^l, 2^(l+1)) ns, the
+     * first one also holds 0 and 1 ns and the last one everything longer.
+     */
+    public long[] getLatencyHistogram(int bucket) {
+        return latencies[bucket].clone();
+    }
+
+    /**
+     * An upper bound of the q quantile (in [0, 1]) of the counting time of the bucket, 0 when it is empty.
+     */
+    public long getLatencyPercentileNanos(int bucket, double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("q should be in [0, 1], got " + q);
+        }
+        long[] histogram = latencies[bucket];
+        long count = counters[bucket][SOLVED];
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int l = 0; l < histogram.length; l++) {
+            seen += histogram[l];
+            if (seen >= rank) {
+                return l == histogram.length - 1 ? Long.MAX_VALUE : (2L << l) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    private long total(int counter) {
+        long total = 0;
+        for (long[] bucket : counters) {
+            total += bucket[counter];
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        text.append("solved=").append(getSolved())
+                .append(" true=").append(getTrueAnswers())
+                .append(" false=").append(getFalseAnswers())
+                .append(" pairs=").append(getPairsExamined())
+                .append(" validationNanos=").append(validationNanos)
+                .append(" countingNanos=").append(getCountingNanos());
+        for (ValidationFailure failure : ValidationFailure.values()) {
+            text.append(' ').append(failure).append('=').append(getValidationFailures(failure));
+        }
+        for (int b = 0; b < counters.length; b++) {
+            if (getSolved(b) > 0) {
+                text.append(System.lineSeparator())
+                        .append("N in [").append(getBucketMinSize(b)).append(", ").append(getBucketMaxSize(b)).append("]:")
+                        .append(" solved=").append(getSolved(b))
+                        .append(" true=").append(getTrueAnswers(b))
+                        .append(" pairs=").append(getPairsExamined(b))
+                        .append(" p50<=").append(getLatencyPercentileNanos(b, 0.5)).append("ns")
+                        .append(" p99<=").append(getLatencyPercentileNanos(b, 0.99)).append("ns");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package org.stanc.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * class SolverMetrics:
+ * - counters and latency histograms of the solved subproblems, see Problem.setMetrics
+ * - subproblems are bucketed by N in powers of two: bucket b holds N in [2^b, 2^(b+1)), bucket 0 also holds N = 0
+ * - every bucket counts the subproblems solved, their TRUE and FALSE answers, the pairs examined before the early
+ * exit, the time spent counting and a histogram of that time, again in powers of two of nanoseconds
+ * - validation failures are counted by the INVALID_* message they threw, and the time spent validating is kept apart
+ * from the time spent counting
+ * - thread safe, on LongAdders so solving threads don't contend; a bucket is only allocated once a subproblem of
+ * its size is recorded
+ * - metrics are off unless an instance is set on the problem, there is no cost at all then
+ * - read with snapshot(), or over JMX once registered, see SolverMetricsMBean
+ */
+public final class SolverMetrics {
+
+    public static final String DEFAULT_NAME = "default";
+
+    static final int SIZE_BUCKETS = 31;
+    static final int LATENCY_BUCKETS = 40;
+
+    private final AtomicReferenceArray<SizeBucket> buckets = new AtomicReferenceArray<>(SIZE_BUCKETS);
+    private final LongAdder[] validationFailures = newAdders(ValidationFailure.values().length);
+    private final LongAdder validationNanos = new LongAdder();
+
+    /**
+     * Records a counted subproblem.
+     *
+     * @param n             the number of points
+     * @param answer        true for TRUE
+     * @param pairsExamined the pairs examined before the counting stopped
+     * @param countingNanos the time spent counting
+     */
+    public void recordSubProblem(int n, boolean answer, long pairsExamined, long countingNanos) {
+        SizeBucket bucket = bucket(sizeBucket(n));
+        bucket.solved.increment();
+        (answer ? bucket.trueAnswers : bucket.falseAnswers).increment();
+        bucket.pairsExamined.add(pairsExamined);
+        bucket.countingNanos.add(countingNanos);
+        bucket.latencies[latencyBucket(countingNanos)].increment();
+    }
+
+    /**
+     * Records time spent validating input.
+     */
+    public void recordValidation(long nanos) {
+        validationNanos.add(nanos);
+    }
+
+    public void recordValidationFailure(ValidationFailure failure) {
+        validationFailures[failure.ordinal()].increment();
+    }
+
+    /**
+     * The values recorded so far. Recording can go on while the snapshot is taken, so two values of a snapshot can
+     * be off by the subproblems recorded in between.
+     */
+    public MetricsSnapshot snapshot() {
+        long[][] counters = new long[SIZE_BUCKETS][];
+        long[][] latencies = new long[SIZE_BUCKETS][];
+        for (int b = 0; b < SIZE_BUCKETS; b++) {
+            SizeBucket bucket = buckets.get(b);
+            counters[b] = new long[MetricsSnapshot.COUNTERS];
+            latencies[b] = new long[LATENCY_BUCKETS];
+            if (bucket != null) {
+                counters[b][MetricsSnapshot.SOLVED] = bucket.solved.sum();
+                counters[b][MetricsSnapshot.TRUE_ANSWERS] = bucket.trueAnswers.sum();
+                counters[b][MetricsSnapshot.FALSE_ANSWERS] = bucket.falseAnswers.sum();
+                counters[b][MetricsSnapshot.PAIRS_EXAMINED] = bucket.pairsExamined.sum();
+                counters[b][MetricsSnapshot.COUNTING_NANOS] = bucket.countingNanos.sum();
+                for (int l = 0; l < LATENCY_BUCKETS; l++) {
+                    latencies[b][l] = bucket.latencies[l].sum();
+                }
+            }
+        }
+        long[] failures = new long[validationFailures.length];
+        for (int f = 0; f < failures.length; f++) {
+            failures[f] = validationFailures[f].sum();
+        }
+        return new MetricsSnapshot(counters, latencies, failures, validationNanos.sum());
+    }
+
+    public void reset() {
+        for (int b = 0; b < SIZE_BUCKETS; b++) {
+            buckets.set(b, null);
+        }
+        for (LongAdder failures : validationFailures) {
+            failures.reset();
+        }
+        validationNanos.reset();
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as org.stanc:type=SolverMetrics,name=DEFAULT_NAME.
+     */
+    public ObjectName registerMBean() throws JMException {
+        return registerMBean(DEFAULT_NAME);
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server as org.stanc:type=SolverMetrics,name=name.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(
+                new StandardMBean(new MBeanView(this), SolverMetricsMBean.class), objectName);
+        return objectName;
+    }
+
+    public static void unregisterMBean(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = objectName(name);
+        if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+        }
+    }
+
+    public static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("org.stanc:type=SolverMetrics,name=" + ObjectName.quote(name));
+    }
+
+    static int sizeBucket(int n) {
+        return n <= 1 ? 0 : 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    static int latencyBucket(long nanos) {
+        return nanos <= 1 ? 0 : Math.min(LATENCY_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    private SizeBucket bucket(int index) {
+        SizeBucket bucket;
+        while ((bucket = buckets.get(index)) == null) {
+            buckets.compareAndSet(index, null, new SizeBucket());
+        }
+        return bucket;
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static final class SizeBucket {
+
+        final LongAdder solved = new LongAdder();
+        final LongAdder trueAnswers = new LongAdder();
+        final LongAdder falseAnswers = new LongAdder();
+        final LongAdder pairsExamined = new LongAdder();
+        final LongAdder countingNanos = new LongAdder();
+        final LongAdder[] latencies = newAdders(LATENCY_BUCKETS);
+    }
+}
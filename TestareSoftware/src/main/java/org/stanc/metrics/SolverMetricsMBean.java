@@ -0,0 +1,42 @@
+package org.stanc.metrics;
+
+/**
+ * The JMX view of a SolverMetrics, see SolverMetrics.registerMBean(). Every attribute reads a fresh snapshot; the
+ * BySize arrays are indexed by size bucket, labelled by getSizeBuckets().
+ */
+public interface SolverMetricsMBean {
+
+    long getSubProblemsSolved();
+
+    long getTrueAnswers();
+
+    long getFalseAnswers();
+
+    double getTrueRatio();
+
+    long getPairsExamined();
+
+    long getValidationNanos();
+
+    long getCountingNanos();
+
+    long getSubProblemsBoundsFailures();
+
+    long getPointsBoundsFailures();
+
+    long getCoordinatesBoundsFailures();
+
+    String[] getSizeBuckets();
+
+    long[] getSolvedBySize();
+
+    long[] getPairsExaminedBySize();
+
+    long[] getCountingNanosBySize();
+
+    long[] getCountingP50NanosBySize();
+
+    long[] getCountingP99NanosBySize();
+
+    void reset();
+}
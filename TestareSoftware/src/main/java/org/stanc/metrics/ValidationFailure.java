@@ -0,0 +1,22 @@
+package org.stanc.metrics;
+
+/**
+ * Which bound of the input was violated, one constant per INVALID_* message of Problem.
+ */
+public enum ValidationFailure {
+
+    /**
+     * Problem.INVALID_SUBPROBLEMS_BOUNDS: the list of subproblems is null or T is out of bounds.
+     */
+    SUBPROBLEMS_BOUNDS,
+
+    /**
+     * Problem.INVALID_POINTS_BOUNDS: a subproblem is null or its N is out of bounds.
+     */
+    POINTS_BOUNDS,
+
+    /**
+     * Problem.INVALID_COORDINATES_BOUNDS: a coordinate is out of bounds.
+     */
+    COORDINATES_BOUNDS
+}
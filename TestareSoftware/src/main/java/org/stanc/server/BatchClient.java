@@ -0,0 +1,109 @@
+package org.stanc.server;
+
+import org.stanc.Point;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * class BatchClient:
+ * - a blocking client of BatchServer
+ * - solve() sends one batch and waits for its results; send() / flush() / receive() pipeline many batches on the
+ * connection, the results come back in the order the batches were sent
+ * - not thread safe
+ */
+public final class BatchClient implements Closeable {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final SocketChannel channel;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    private BatchClient(SocketChannel channel) {
+        this.channel = channel;
+        this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), STREAM_BUFFER_SIZE));
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER_SIZE));
+    }
+
+    public static BatchClient connect(SocketAddress address) throws IOException {
+        return new BatchClient(SocketChannel.open(address));
+    }
+
+    /**
+     * Same results as Problem.solve() with the limits of the server; out of bounds batches throw its RuntimeException.
+     */
+    public List<String> solve(List<List<Point>> subProblems) throws IOException {
+        send(subProblems);
+        flush();
+        return receive();
+    }
+
+    /**
+     * Buffers a request. Null lists can't be sent, see BatchProtocol.
+     */
+    public void send(List<List<Point>> subProblems) throws IOException {
+        if (subProblems == null) {
+            throw new IllegalArgumentException("The batch protocol does not carry null subproblems");
+        }
+        long length = Integer.BYTES;
+        for (List<Point> points : subProblems) {
+            // not subProblems.contains(null): immutable lists such as List.of throw NullPointerException on it
+            if (points == null) {
+                throw new IllegalArgumentException("The batch protocol does not carry null subproblems");
+            }
+            length += Integer.BYTES + 2L * Integer.BYTES * points.size();
+        }
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch too big for a single frame: " + length + " bytes");
+        }
+        out.writeInt((int) length);
+        out.writeInt(subProblems.size());
+        for (List<Point> points : subProblems) {
+            out.writeInt(points.size());
+            for (Point p : points) {
+                out.writeInt(p.getX());
+                out.writeInt(p.getY());
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Waits for the response of the oldest request not received yet.
+     */
+    public List<String> receive() throws IOException {
+        int length = in.readInt();
+        byte status = in.readByte();
+        if (status == BatchProtocol.ERROR) {
+            throw new RuntimeException(in.readUTF());
+        }
+        if (status != BatchProtocol.OK || length < 1 + Integer.BYTES) {
+            throw new ProtocolException("Unexpected response status " + status);
+        }
+        int count = in.readInt();
+        List<String> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(in.readByte() == 1 ? "TRUE" : "FALSE");
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package org.stanc.server;
+
+/**
+ * The binary protocol of BatchServer, all numbers big endian. Every message is a frame: int length, then length bytes.
+ * - request: int T, then for every subproblem int N followed by N pairs of int x, int y
+ * - response: byte OK, int T, then T bytes, 1 for "TRUE" and 0 for "FALSE"
+ * - or, when the batch is out of the server limits: byte ERROR, then the Problem.solve() message in modified UTF-8
+ * (as written by DataOutput.writeUTF)
+ * A client may send many requests without waiting, the responses come back in the same order.
+ * Null subproblems can't be sent: a request always holds T lists of points.
+ */
+final class BatchProtocol {
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+
+    static final int DEFAULT_MAX_FRAME_LENGTH = 1 << 28;
+
+    private BatchProtocol() {
+    }
+}
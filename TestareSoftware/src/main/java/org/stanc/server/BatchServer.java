@@ -0,0 +1,266 @@
+package org.stanc.server;
+
+import org.stanc.Problem;
+import org.stanc.ProblemBatch;
+import org.stanc.ProblemLimits;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * class BatchServer:
+ * - solves batches sent over a local socket with the BatchProtocol, TCP or (on Java 21) a Unix domain socket
+ * - every connection is served by its own task, on a virtual thread when running on Java 21 (see ConnectionExecutors),
+ * so many idle or slow clients cost little; that task only does the I/O
+ * - the batches are solved on a fixed pool of one platform thread per CPU, so the per thread Workspace of Problem
+ * (the coordinates and the counters) exists once per solver thread and not once per connection: an idle connection
+ * holds its frame buffer and nothing of the solver
+ * - requests of a connection are answered in order; responses of pipelined requests are flushed together, once there
+ * is no more request waiting
+ * - a batch out of the server limits gets an ERROR response with the Problem.solve() message and the connection stays
+ * open; a malformed frame closes the connection
+ */
+public final class BatchServer implements Closeable {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final ServerSocketChannel serverChannel;
+    private final ProblemLimits limits;
+    private final int maxFrameLength;
+    private final ExecutorService connections = ConnectionExecutors.newPerConnectionExecutor();
+    private final ThreadPoolExecutor solvers = newSolverPool();
+    private final Set<SocketChannel> openChannels = ConcurrentHashMap.newKeySet();
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    private BatchServer(ServerSocketChannel serverChannel, ProblemLimits limits, int maxFrameLength) {
+        this.serverChannel = serverChannel;
+        this.limits = limits;
+        this.maxFrameLength = maxFrameLength;
+        this.acceptor = new Thread(this::acceptLoop, "batch-server-acceptor");
+        this.acceptor.setDaemon(true);
+    }
+
+    public static BatchServer start(SocketAddress address, ProblemLimits limits) throws IOException {
+        return start(address, limits, BatchProtocol.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength the biggest request accepted, in bytes; a bigger one closes the connection
+     */
+    public static BatchServer start(SocketAddress address, ProblemLimits limits, int maxFrameLength) throws IOException {
+        BatchServer server = new BatchServer(SocketAddresses.bind(address), limits, maxFrameLength);
+        server.acceptor.start();
+        return server;
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    private static ThreadPoolExecutor newSolverPool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "batch-server-solver-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The number of solver threads started so far, at most one per CPU whatever the number of connections.
+     */
+    int getSolverThreads() {
+        return solvers.getPoolSize();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (IOException e) {
+                break;
+            }
+            openChannels.add(channel);
+            try {
+                connections.execute(() -> serve(channel));
+            } catch (RejectedExecutionException e) {
+                // closed while accepting
+                openChannels.remove(channel);
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                    // already closing
+                }
+                break;
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), STREAM_BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), STREAM_BUFFER_SIZE))) {
+            ByteBuffer frame = ByteBuffer.allocate(1024);
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                if (length < Integer.BYTES || length > maxFrameLength) {
+                    return;
+                }
+                if (frame.capacity() < length) {
+                    frame = ByteBuffer.allocate(Math.max(length, (int) Math.min(maxFrameLength, frame.capacity() * 2L)));
+                }
+                in.readFully(frame.array(), 0, length);
+                frame.clear().limit(length);
+                respond(frame, out);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // the client went away or sent a malformed frame, there is nobody to answer
+        } finally {
+            openChannels.remove(channel);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // already closing
+            }
+        }
+    }
+
+    private void respond(ByteBuffer frame, DataOutputStream out) throws IOException {
+        ProblemBatch batch;
+        try {
+            batch = decode(frame);
+        } catch (RuntimeException e) {
+            writeError(out, e.getMessage());
+            return;
+        }
+        List<String> results = solve(batch);
+        out.writeInt(1 + Integer.BYTES + results.size());
+        out.writeByte(BatchProtocol.OK);
+        out.writeInt(results.size());
+        for (String result : results) {
+            out.writeByte("TRUE".equals(result) ? 1 : 0);
+        }
+    }
+
+    /**
+     * Solves the batch on the solver pool and waits for it, on the thread of the connection.
+     */
+    private List<String> solve(ProblemBatch batch) throws IOException {
+        try {
+            return solvers.submit(() -> Problem.of(batch).solve()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while solving");
+        } catch (ExecutionException e) {
+            // the batch was validated by decode(), so this is a bug of the solver, not of the request
+            throw new IllegalStateException(e.getCause());
+        } catch (RejectedExecutionException e) {
+            throw new IOException("The server is closed", e);
+        }
+    }
+
+    /**
+     * Reads the columns of the request and validates them against the limits. A frame that does not match its own
+     * counts throws a ProtocolException; bounds out of the limits throw the RuntimeException of ProblemBatch.
+     */
+    private ProblemBatch decode(ByteBuffer frame) throws ProtocolException {
+        int count = frame.getInt();
+        if (count < 0 || (long) count * Integer.BYTES > frame.remaining()) {
+            throw new ProtocolException("Bad subproblems count " + count);
+        }
+        int[] offsets = new int[count + 1];
+        int start = frame.position();
+        for (int s = 0; s < count; s++) {
+            if (frame.remaining() < Integer.BYTES) {
+                throw new ProtocolException("Frame too short for subproblem " + s);
+            }
+            int n = frame.getInt();
+            if (n < 0 || (long) n * 2 * Integer.BYTES > frame.remaining()) {
+                throw new ProtocolException("Bad points count " + n + " for subproblem " + s);
+            }
+            frame.position(frame.position() + n * 2 * Integer.BYTES);
+            offsets[s + 1] = offsets[s] + n;
+        }
+        if (frame.hasRemaining()) {
+            throw new ProtocolException("Trailing bytes after the last subproblem");
+        }
+        frame.position(start);
+        int[] xs = new int[offsets[count]];
+        int[] ys = new int[offsets[count]];
+        for (int s = 0; s < count; s++) {
+            frame.getInt();
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                xs[i] = frame.getInt();
+                ys[i] = frame.getInt();
+            }
+        }
+        return new ProblemBatch(xs, ys, offsets, limits);
+    }
+
+    private static void writeError(DataOutputStream out, String message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(message);
+        out.writeInt(1 + bytes.size());
+        out.writeByte(BatchProtocol.ERROR);
+        bytes.writeTo(out);
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverChannel.close();
+        for (SocketChannel channel : openChannels) {
+            channel.close();
+        }
+        connections.shutdownNow();
+        solvers.shutdownNow();
+    }
+
+    /**
+     * Usage: BatchServer [host:port | unix:/path/to/socket]
+     * The limits are the default ones unless -Dlimits=unbounded is given.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        ProblemLimits limits = "unbounded".equals(System.getProperty("limits")) ? ProblemLimits.unbounded() : ProblemLimits.DEFAULT;
+        SocketAddress address = SocketAddresses.parse(args.length > 0 ? args[0] : "127.0.0.1:7070");
+        BatchServer server = start(address, limits);
+        System.err.println("Listening on " + server.getLocalAddress() + " with " + ConnectionExecutors.describe());
+        server.acceptor.join();
+    }
+}
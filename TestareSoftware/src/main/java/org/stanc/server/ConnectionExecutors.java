@@ -0,0 +1,28 @@
+package org.stanc.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor running one task per connection of a BatchServer. On Java 11 it uses platform threads; the Java 21
+ * version of this class (src/main/java21, in META-INF/versions/21 of the multi-release jar) uses virtual threads.
+ */
+final class ConnectionExecutors {
+
+    private ConnectionExecutors() {
+    }
+
+    static ExecutorService newPerConnectionExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "batch-server-connection-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static String describe() {
+        return "platform threads";
+    }
+}
@@ -0,0 +1,328 @@
+package org.stanc.server;
+
+import org.stanc.PointSet;
+import org.stanc.ProblemBatch;
+import org.stanc.engine.DenseCounter;
+import org.stanc.engine.Engine;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.PlanningCounter;
+import org.stanc.engine.StopSignal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * class ShardCoordinator:
+ * - a PairCounter spreading the counting of a subproblem over ShardWorker processes on the same machine: every worker
+ * gets all the points and counts the keys of its shard of the key hash space, so each one only holds its share of
+ * the distinct keys (see ShardProtocol)
+ * - the workers are plain JVMs started with the class path of this one, talking to it over loopback sockets
+ * - the partial counts are merged as they come back: the distinct keys and pairs are summed, the max multiplicity
+ * kept; the first TRUE answers the subproblem and a STOP is broadcast so the other workers drop it
+ * - subproblems whose pigeonhole bound or dense spread make them cheap are answered here, without the workers
+ * - IO failures, like a worker that died, are thrown as UncheckedIOException; not thread safe
+ */
+public final class ShardCoordinator implements PairCounter, Closeable {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+    private static final int CONNECT_TIMEOUT_MILLIS = 30_000;
+    private static final long STOP_POLL_MILLIS = 50;
+
+    private final List<Process> processes;
+    private final List<Socket> sockets = new ArrayList<>();
+    private final List<DataOutputStream> outputs = new ArrayList<>();
+    private final BlockingQueue<Result> results = new LinkedBlockingQueue<>();
+    private final DenseCounter dense = new DenseCounter(DenseCounter.MAX_DELTA);
+    private int nextJob;
+    private long pairsExamined;
+    private long keysCounted;
+    private int lastMaxMultiplicity;
+    private volatile boolean closed;
+
+    private ShardCoordinator(List<Process> processes) {
+        this.processes = processes;
+    }
+
+    /**
+     * Starts the worker processes and waits for all of them to connect.
+     */
+    public static ShardCoordinator launch(int workers) throws IOException {
+        return launch(workers, new ArrayList<>());
+    }
+
+    /**
+     * @param jvmOptions options for the worker JVMs, "-Xmx2g" for instance
+     */
+    public static ShardCoordinator launch(int workers, List<String> jvmOptions) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one worker is needed, got " + workers);
+        }
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            List<Process> processes = new ArrayList<>(workers);
+            ShardCoordinator coordinator = new ShardCoordinator(processes);
+            try {
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                for (int shard = 0; shard < workers; shard++) {
+                    List<String> command = new ArrayList<>();
+                    command.add(java);
+                    command.addAll(jvmOptions);
+                    command.add("-cp");
+                    command.add(System.getProperty("java.class.path"));
+                    command.add(ShardWorker.class.getName());
+                    command.add(Integer.toString(server.getLocalPort()));
+                    command.add(Integer.toString(shard));
+                    command.add(Integer.toString(workers));
+                    processes.add(new ProcessBuilder(command)
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start());
+                }
+                coordinator.accept(server, workers);
+                return coordinator;
+            } catch (IOException | RuntimeException e) {
+                coordinator.close();
+                throw e;
+            }
+        }
+    }
+
+    private void accept(ServerSocket server, int workers) throws IOException {
+        Socket[] byShard = new Socket[workers];
+        for (int connected = 0; connected < workers; connected++) {
+            Socket socket = server.accept();
+            sockets.add(socket);
+            socket.setTcpNoDelay(true);
+            int shard = new DataInputStream(socket.getInputStream()).readInt();
+            if (shard < 0 || shard >= workers || byShard[shard] != null) {
+                throw new ProtocolException("Bad shard " + shard + " from a worker");
+            }
+            byShard[shard] = socket;
+        }
+        for (int shard = 0; shard < workers; shard++) {
+            Socket socket = byShard[shard];
+            outputs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER_SIZE)));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER_SIZE));
+            Thread reader = new Thread(() -> read(in), "shard-coordinator-reader-" + shard);
+            reader.setDaemon(true);
+            reader.start();
+        }
+    }
+
+    private void read(DataInputStream in) {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                if (type != ShardProtocol.RESULT) {
+                    throw new ProtocolException("Unknown message type " + type);
+                }
+                results.add(new Result(in.readInt(), in.readBoolean(), in.readLong(), in.readLong(), in.readInt(), null));
+            }
+        } catch (IOException e) {
+            results.add(new Result(-1, false, 0, 0, 0, closed ? null : e));
+        }
+    }
+
+    public int getWorkers() {
+        return processes.size();
+    }
+
+    List<Process> processes() {
+        return processes;
+    }
+
+    /**
+     * The largest multiplicity of a key in the last subproblem counted by the workers, at least 3 if it was TRUE.
+     */
+    public int getLastMaxMultiplicity() {
+        return lastMaxMultiplicity;
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        Engine engine = PlanningCounter.plan(xs, ys, from, to);
+        if (engine == Engine.PIGEONHOLE) {
+            return PairCounter.pairCount(from, to) >= 3;
+        }
+        if (engine == Engine.DENSE) {
+            long pairs = dense.pairsExamined();
+            long keys = dense.keysCounted();
+            boolean answer = dense.hasTriple(xs, ys, from, to, stop);
+            pairsExamined += dense.pairsExamined() - pairs;
+            keysCounted += dense.keysCounted() - keys;
+            return answer;
+        }
+        try {
+            return distribute(xs, ys, from, to, stop);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the workers");
+        }
+    }
+
+    private boolean distribute(int[] xs, int[] ys, int from, int to, StopSignal stop)
+            throws IOException, InterruptedException {
+        int job = nextJob++;
+        for (DataOutputStream out : outputs) {
+            out.writeByte(ShardProtocol.JOB);
+            out.writeInt(job);
+            out.writeInt(to - from);
+            for (int i = from; i < to; i++) {
+                out.writeInt(xs[i]);
+                out.writeInt(ys[i]);
+            }
+            out.flush();
+        }
+
+        int pending = outputs.size();
+        int max = 0;
+        Throwable failure = null;
+        try {
+            while (pending > 0) {
+                Result result = results.poll(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (result == null) {
+                    stop.check();
+                    continue;
+                }
+                if (result.job < 0) {
+                    results.add(result);
+                    throw result.failure != null ? result.failure : new IOException("The coordinator is closed");
+                }
+                if (result.job != job) {
+                    // a late answer to a subproblem stopped before
+                    continue;
+                }
+                pending--;
+                pairsExamined += result.pairs;
+                keysCounted += result.keys;
+                max = Math.max(max, result.maxMultiplicity);
+                if (result.answer) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            lastMaxMultiplicity = max;
+            if (pending > 0 && !closed) {
+                try {
+                    broadcastStop(job);
+                } catch (IOException e) {
+                    // a dead worker fails the STOP too, keep the failure that ended the run
+                    if (failure == null) {
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+    }
+
+    private void broadcastStop(int job) throws IOException {
+        for (DataOutputStream out : outputs) {
+            out.writeByte(ShardProtocol.STOP);
+            out.writeInt(job);
+            out.flush();
+        }
+    }
+
+    /**
+     * Same results as Problem.of(batch).solve(), the subproblems being counted one after the other by the workers.
+     */
+    public List<String> solve(ProblemBatch batch) {
+        List<String> answers = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PointSet points = batch.get(i);
+            int[] xs = new int[points.size()];
+            int[] ys = new int[points.size()];
+            for (int p = 0; p < xs.length; p++) {
+                xs[p] = points.getX(p);
+                ys[p] = points.getY(p);
+            }
+            answers.add(hasTriple(xs, ys, 0, xs.length) ? "TRUE" : "FALSE");
+        }
+        return answers;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+
+    /**
+     * Shuts the workers down, and kills the ones still running after a few seconds.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (DataOutputStream out : outputs) {
+            try {
+                out.writeByte(ShardProtocol.SHUTDOWN);
+                out.flush();
+            } catch (IOException ignored) {
+                // the worker is gone already
+            }
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closing
+            }
+        }
+        for (Process process : processes) {
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Result {
+
+        final int job;
+        final boolean answer;
+        final long pairs;
+        final long keys;
+        final int maxMultiplicity;
+        final IOException failure;
+
+        Result(int job, boolean answer, long pairs, long keys, int maxMultiplicity, IOException failure) {
+            this.job = job;
+            this.answer = answer;
+            this.pairs = pairs;
+            this.keys = keys;
+            this.maxMultiplicity = maxMultiplicity;
+            this.failure = failure;
+        }
+    }
+}
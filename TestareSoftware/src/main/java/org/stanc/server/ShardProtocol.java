@@ -0,0 +1,30 @@
+package org.stanc.server;
+
+/**
+ * The protocol between a ShardCoordinator and its ShardWorker processes, over a loopback TCP connection per worker,
+ * all numbers big endian:
+ * - worker to coordinator, once connected: int shard, the index the worker was launched with
+ * - coordinator to worker: JOB, int job, int N, then N pairs of int x, int y; STOP, int job; SHUTDOWN
+ * - worker to coordinator, for every JOB that was not stopped: RESULT, int job, boolean answer, long pairs counted,
+ * long distinct keys counted, int max multiplicity
+ * A worker only counts the keys of its shard, the ones whose hash maps to its index: its counts are complete for
+ * those keys, so its answer is final when TRUE, and the shards never count the same key.
+ */
+final class ShardProtocol {
+
+    static final byte JOB = 1;
+    static final byte STOP = 2;
+    static final byte SHUTDOWN = 3;
+    static final byte RESULT = 4;
+
+    private ShardProtocol() {
+    }
+
+    /**
+     * The shard of a packed key among shards: a multiply-shift of its hash, so any number of shards is even.
+     */
+    static int shardOf(long key, int shards) {
+        long hash = (key * 0xC2B2AE3D27D4EB4FL) >>> 32;
+        return (int) ((hash * shards) >>> 32);
+    }
+}
@@ -0,0 +1,153 @@
+package org.stanc.server;
+
+import org.stanc.engine.HashCounter;
+import org.stanc.engine.LongIntHashMap;
+import org.stanc.engine.StopSignal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ProtocolException;
+import java.net.Socket;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * class ShardWorker:
+ * - the process a ShardCoordinator launches for every shard: it connects back to the coordinator over loopback and
+ * counts, for every JOB, the keys of its own shard among all the pairs of the points (see ShardProtocol)
+ * - jobs run one at a time on a counting thread, while the main thread keeps reading, so a STOP for the running job
+ * stops it at the next row
+ * - exits on SHUTDOWN or when the coordinator goes away
+ */
+public final class ShardWorker {
+
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+    private final int shard;
+    private final int shards;
+    private final DataOutputStream out;
+    private final LongIntHashMap counts = new LongIntHashMap();
+    private volatile int runningJob = -1;
+    private volatile StopSignal runningStop = new StopSignal();
+
+    private ShardWorker(int shard, int shards, DataOutputStream out) {
+        this.shard = shard;
+        this.shards = shards;
+        this.out = out;
+    }
+
+    /**
+     * Usage: ShardWorker port shard shards
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: ShardWorker port shard shards");
+            System.exit(2);
+        }
+        int port = Integer.parseInt(args[0]);
+        int shard = Integer.parseInt(args[1]);
+        int shards = Integer.parseInt(args[2]);
+        ExecutorService counting = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "shard-worker-" + shard);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), STREAM_BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), STREAM_BUFFER_SIZE))) {
+            socket.setTcpNoDelay(true);
+            out.writeInt(shard);
+            out.flush();
+            new ShardWorker(shard, shards, out).serve(in, counting);
+        } finally {
+            counting.shutdownNow();
+        }
+    }
+
+    private void serve(DataInputStream in, ExecutorService counting) throws IOException {
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+            switch (type) {
+                case ShardProtocol.JOB:
+                    int job = in.readInt();
+                    int n = in.readInt();
+                    int[] xs = new int[n];
+                    int[] ys = new int[n];
+                    for (int i = 0; i < n; i++) {
+                        xs[i] = in.readInt();
+                        ys[i] = in.readInt();
+                    }
+                    StopSignal stop = new StopSignal();
+                    runningStop = stop;
+                    runningJob = job;
+                    counting.execute(() -> run(job, xs, ys, stop));
+                    break;
+                case ShardProtocol.STOP:
+                    int stopped = in.readInt();
+                    if (runningJob == stopped) {
+                        runningStop.stop();
+                    }
+                    break;
+                case ShardProtocol.SHUTDOWN:
+                    return;
+                default:
+                    throw new ProtocolException("Unknown message type " + type);
+            }
+        }
+    }
+
+    private void run(int job, int[] xs, int[] ys, StopSignal stop) {
+        counts.clear();
+        long pairs = 0;
+        int max = 0;
+        boolean answer = false;
+        try {
+            int n = xs.length;
+            rows:
+            for (int i = 0; i < n - 1; i++) {
+                stop.check();
+                long x = xs[i];
+                long y = ys[i];
+                for (int j = i + 1; j < n; j++) {
+                    long key = HashCounter.key(x, y, xs[j], ys[j]);
+                    if (ShardProtocol.shardOf(key, shards) == shard) {
+                        pairs++;
+                        int count = counts.addTo(key, 1);
+                        max = Math.max(max, count);
+                        if (count == 3) {
+                            answer = true;
+                            break rows;
+                        }
+                    }
+                }
+            }
+        } catch (CancellationException e) {
+            // the coordinator has its answer already
+            return;
+        }
+        try {
+            synchronized (out) {
+                out.writeByte(ShardProtocol.RESULT);
+                out.writeInt(job);
+                out.writeBoolean(answer);
+                out.writeLong(pairs);
+                out.writeLong(counts.size());
+                out.writeInt(max);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the coordinator went away, the main thread sees it too and exits
+        }
+    }
+}
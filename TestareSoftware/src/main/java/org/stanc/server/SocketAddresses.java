@@ -0,0 +1,43 @@
+package org.stanc.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Parses and binds the addresses of a BatchServer. On Java 11 only TCP is available; the Java 21 version of this
+ * class (src/main/java21) adds Unix domain sockets, written "unix:/path/to/socket".
+ */
+final class SocketAddresses {
+
+    static final String UNIX_PREFIX = "unix:";
+
+    private SocketAddresses() {
+    }
+
+    /**
+     * "host:port" for TCP.
+     */
+    static SocketAddress parse(String spec) {
+        if (spec.startsWith(UNIX_PREFIX)) {
+            throw new UnsupportedOperationException("Unix domain sockets need the Java 21 build");
+        }
+        int colon = spec.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + spec);
+        }
+        return new InetSocketAddress(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1)));
+    }
+
+    static ServerSocketChannel bind(SocketAddress address) throws IOException {
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+}
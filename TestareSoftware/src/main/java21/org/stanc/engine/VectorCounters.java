@@ -0,0 +1,63 @@
+package org.stanc.engine;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates the pair counter for a coordinate range: a VectorPairCounter when the JVM runs with
+ * --add-modules jdk.incubator.vector, the scalar DenseCounter or HashCounter otherwise, or when
+ * -Dorg.stanc.vector=false.
+ * VectorPairCounter is only reached through a method handle, so this class links on JVMs without the module.
+ */
+public final class VectorCounters {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final MethodHandle VECTOR_CONSTRUCTOR = findVectorConstructor();
+
+    private VectorCounters() {
+    }
+
+    private static MethodHandle findVectorConstructor() {
+        if (!Boolean.parseBoolean(System.getProperty("org.stanc.vector", "true"))
+                || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> type = Class.forName(VectorCounters.class.getPackageName() + ".VectorPairCounter");
+            return MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class, long.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * True if newCounter() returns a vectorized counter.
+     */
+    public static boolean isAvailable() {
+        return VECTOR_CONSTRUCTOR != null;
+    }
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     */
+    public static PairCounter newCounter(long maxDelta) {
+        if (VECTOR_CONSTRUCTOR == null) {
+            return newScalarCounter(maxDelta);
+        }
+        try {
+            return (PairCounter) VECTOR_CONSTRUCTOR.invoke(maxDelta);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A DenseCounter if the range allows it, a HashCounter otherwise.
+     */
+    public static PairCounter newScalarCounter(long maxDelta) {
+        return maxDelta <= DenseCounter.MAX_DELTA ? new DenseCounter((int) maxDelta) : new HashCounter();
+    }
+}
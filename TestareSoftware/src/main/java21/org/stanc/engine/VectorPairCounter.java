@@ -0,0 +1,175 @@
+package org.stanc.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * class VectorPairCounter:
+ * - same answers as DenseCounter / HashCounter, but for every row i the keys of the pairs (i, j) are computed for a
+ * whole vector of j at once with the Vector API: |dx| and |dy| by lane-wise sub and abs, then packed
+ * - the row of keys is then counted with a scalar loop, since lanes can share a key and a vector scatter would lose
+ * increments
+ * - bounded ranges (maxDelta up to DenseCounter.MAX_DELTA) pack dx * width + dy into int lanes and count in a stamped
+ * array like DenseCounter; wider ranges pack |dx| << 32 | |dy| into long lanes and count in a LongIntHashMap
+ * - needs jdk.incubator.vector at run time, see VectorCounters for the fallback; not thread safe
+ */
+public final class VectorPairCounter implements PairCounter {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private final boolean dense;
+    private final int width;
+    private final int[] counts;
+    private final int[] stamps;
+    private int generation;
+    private final LongIntHashMap wideCounts;
+    private int[] intKeys = new int[64];
+    private long[] longKeys = new long[0];
+    private long[] longXs = new long[0];
+    private long[] longYs = new long[0];
+    private long pairsExamined;
+    private long keysCounted;
+
+    /**
+     * @param maxDelta the biggest |dx| or |dy| that can appear, see ProblemLimits.maxDelta()
+     */
+    public VectorPairCounter(long maxDelta) {
+        if (maxDelta < 0) {
+            throw new IllegalArgumentException("maxDelta should not be negative, got " + maxDelta);
+        }
+        this.dense = maxDelta <= DenseCounter.MAX_DELTA;
+        this.width = dense ? (int) maxDelta + 1 : 0;
+        this.counts = dense ? new int[width * width] : null;
+        this.stamps = dense ? new int[width * width] : null;
+        this.wideCounts = dense ? null : new LongIntHashMap();
+    }
+
+    public static String describe() {
+        return INTS.length() + " int lanes, " + LONGS.length() + " long lanes";
+    }
+
+    @Override
+    public boolean hasTriple(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        return dense ? hasTripleDense(xs, ys, from, to, stop) : hasTripleWide(xs, ys, from, to, stop);
+    }
+
+    private boolean hasTripleDense(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        if (intKeys.length < to - from) {
+            intKeys = new int[to - from];
+        }
+        int[] rowKeys = intKeys;
+        int gen = nextGeneration();
+        int keys = 0;
+        for (int i = from; i < to - 1; i++) {
+            stop.check();
+            int length = denseRow(xs, ys, i, to, rowKeys);
+            for (int k = 0; k < length; k++) {
+                int key = rowKeys[k];
+                if (stamps[key] != gen) {
+                    stamps[key] = gen;
+                    counts[key] = 1;
+                    keys++;
+                } else if (++counts[key] == 3) {
+                    pairsExamined += PairCounter.pairsUpTo(from, to, i, i + 1 + k);
+                    keysCounted += keys;
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        keysCounted += keys;
+        return false;
+    }
+
+    /**
+     * Writes the keys of the pairs (i, j), j in (i, to), into rowKeys and returns how many there are.
+     */
+    private int denseRow(int[] xs, int[] ys, int i, int to, int[] rowKeys) {
+        int start = i + 1;
+        int length = to - start;
+        IntVector x = IntVector.broadcast(INTS, xs[i]);
+        IntVector y = IntVector.broadcast(INTS, ys[i]);
+        int k = 0;
+        for (int bound = INTS.loopBound(length); k < bound; k += INTS.length()) {
+            IntVector dx = IntVector.fromArray(INTS, xs, start + k).sub(x).abs();
+            IntVector dy = IntVector.fromArray(INTS, ys, start + k).sub(y).abs();
+            dx.mul(width).add(dy).intoArray(rowKeys, k);
+        }
+        for (; k < length; k++) {
+            rowKeys[k] = Math.abs(xs[i] - xs[start + k]) * width + Math.abs(ys[i] - ys[start + k]);
+        }
+        return length;
+    }
+
+    private boolean hasTripleWide(int[] xs, int[] ys, int from, int to, StopSignal stop) {
+        int n = to - from;
+        if (longXs.length < n) {
+            longXs = new long[n];
+            longYs = new long[n];
+            longKeys = new long[n];
+        }
+        for (int i = 0; i < n; i++) {
+            longXs[i] = xs[from + i];
+            longYs[i] = ys[from + i];
+        }
+        wideCounts.clear();
+        for (int i = 0; i < n - 1; i++) {
+            stop.check();
+            int length = wideRow(i, n);
+            for (int k = 0; k < length; k++) {
+                if (wideCounts.addTo(longKeys[k], 1) == 3) {
+                    pairsExamined += PairCounter.pairsUpTo(0, n, i, i + 1 + k);
+                    keysCounted += wideCounts.size();
+                    return true;
+                }
+            }
+        }
+        pairsExamined += PairCounter.pairCount(from, to);
+        keysCounted += wideCounts.size();
+        return false;
+    }
+
+    /**
+     * Writes the keys of the pairs (i, j), j in (i, n), of longXs and longYs into longKeys and returns how many there
+     * are. The coordinates are widened to longs first, so |dx| and |dy| can't overflow, like in HashCounter.key().
+     */
+    private int wideRow(int i, int n) {
+        int start = i + 1;
+        int length = n - start;
+        LongVector x = LongVector.broadcast(LONGS, longXs[i]);
+        LongVector y = LongVector.broadcast(LONGS, longYs[i]);
+        int k = 0;
+        for (int bound = LONGS.loopBound(length); k < bound; k += LONGS.length()) {
+            LongVector dx = LongVector.fromArray(LONGS, longXs, start + k).sub(x).abs();
+            LongVector dy = LongVector.fromArray(LONGS, longYs, start + k).sub(y).abs();
+            dx.lanewise(VectorOperators.LSHL, 32).or(dy).intoArray(longKeys, k);
+        }
+        for (; k < length; k++) {
+            longKeys[k] = HashCounter.key(longXs[i], longYs[i], longXs[start + k], longYs[start + k]);
+        }
+        return length;
+    }
+
+    private int nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        return generation;
+    }
+
+    @Override
+    public long pairsExamined() {
+        return pairsExamined;
+    }
+
+    @Override
+    public long keysCounted() {
+        return keysCounted;
+    }
+}
@@ -0,0 +1,22 @@
+package org.stanc.server;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The executor running one task per connection of a BatchServer: a virtual thread per connection, so tens of
+ * thousands of mostly idle clients don't need as many platform threads.
+ */
+final class ConnectionExecutors {
+
+    private ConnectionExecutors() {
+    }
+
+    static ExecutorService newPerConnectionExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-server-connection-", 0).factory());
+    }
+
+    static String describe() {
+        return "virtual threads";
+    }
+}
@@ -0,0 +1,44 @@
+package org.stanc.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+
+/**
+ * Parses and binds the addresses of a BatchServer: "host:port" for TCP, "unix:/path/to/socket" for a Unix domain
+ * socket.
+ */
+final class SocketAddresses {
+
+    static final String UNIX_PREFIX = "unix:";
+
+    private SocketAddresses() {
+    }
+
+    static SocketAddress parse(String spec) {
+        if (spec.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(spec.substring(UNIX_PREFIX.length()));
+        }
+        int colon = spec.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port or unix:path, got " + spec);
+        }
+        return new InetSocketAddress(spec.substring(0, colon), Integer.parseInt(spec.substring(colon + 1)));
+    }
+
+    static ServerSocketChannel bind(SocketAddress address) throws IOException {
+        ServerSocketChannel channel = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            channel.bind(address);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,129 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.metrics.SolverMetrics;
+import org.stanc.utils.RandomSubProblems;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+public class AsyncSolveTest {
+
+    private static final List<Point> LINE = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 3),
+            new Point(4, 4));
+    private static final List<Point> CORNER = Arrays.asList(new Point(0, 0), new Point(0, 1), new Point(1, 0));
+
+    /**
+     * Runs the tasks when asked to, so the tests choose what has started.
+     */
+    private static final class ManualExecutor implements java.util.concurrent.Executor {
+
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.poll().run();
+            }
+        }
+    }
+
+    @Test
+    public void resultsMatchSolve() throws Exception {
+        Random random = new Random(18);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int run = 0; run < 50; run++) {
+                List<List<Point>> subProblems = RandomSubProblems.of(random, 1 + random.nextInt(5));
+                List<String> expected = new Problem(subProblems).solve();
+                Assertions.assertEquals(expected, new Problem(subProblems).solveAsync(executor).get().toList());
+                Assertions.assertEquals(expected, Problem.of(ProblemBatch.of(subProblems, ProblemLimits.DEFAULT))
+                        .solveAsync(ForkJoinPool.commonPool()).get().toList());
+
+                List<CompletableFuture<Boolean>> answers = new Problem(subProblems).solveEachAsync(executor);
+                Assertions.assertEquals(expected.size(), answers.size());
+                for (int s = 0; s < expected.size(); s++) {
+                    Assertions.assertEquals("TRUE".equals(expected.get(s)), answers.get(s).get());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidSubProblemsCompleteExceptionally() {
+        List<Point> badCoordinate = Arrays.asList(new Point(1, 1), new Point(3, 51));
+        List<List<Point>> subProblems = Arrays.asList(LINE, badCoordinate, null);
+        Exception expected = Assertions.assertThrows(RuntimeException.class, () -> new Problem(subProblems).solve());
+
+        ExecutionException failure = Assertions.assertThrows(ExecutionException.class,
+                () -> new Problem(subProblems.subList(0, 2)).solveAsync(ForkJoinPool.commonPool()).get());
+        Assertions.assertEquals(expected.getMessage(), failure.getCause().getMessage());
+
+        List<CompletableFuture<Boolean>> answers = new Problem(subProblems).solveEachAsync(ForkJoinPool.commonPool());
+        Assertions.assertTrue(answers.get(0).join());
+        Assertions.assertEquals(expected.getMessage(), Assertions.assertThrows(ExecutionException.class,
+                () -> answers.get(1).get()).getCause().getMessage());
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 2), Assertions.assertThrows(
+                ExecutionException.class, () -> answers.get(2).get()).getCause().getMessage());
+
+        Assertions.assertThrows(RuntimeException.class, () -> new Problem(null).solveEachAsync(ForkJoinPool.commonPool()));
+        Assertions.assertThrows(RuntimeException.class,
+                () -> new Problem(Collections.nCopies(6, LINE)).solveEachAsync(ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void cancelledSolveCountsNothing() {
+        ManualExecutor executor = new ManualExecutor();
+        SolverMetrics metrics = new SolverMetrics();
+        Problem problem = new Problem(Arrays.asList(LINE, CORNER, LINE));
+        problem.setMetrics(metrics);
+
+        CompletableFuture<SolveResults> results = problem.solveAsync(executor);
+        Assertions.assertEquals(1, executor.tasks.size());
+        executor.tasks.poll().run();
+        Assertions.assertEquals(3, executor.tasks.size());
+        Assertions.assertTrue(results.cancel(true));
+        executor.runAll();
+
+        Assertions.assertThrows(CancellationException.class, results::join);
+        Assertions.assertEquals(0, metrics.snapshot().getSolved());
+    }
+
+    @Test
+    public void cancellingOneSubProblemLeavesTheOthers() {
+        ManualExecutor executor = new ManualExecutor();
+        List<CompletableFuture<Boolean>> answers = new Problem(Arrays.asList(LINE, CORNER, LINE))
+                .solveEachAsync(executor);
+        answers.get(1).cancel(true);
+        executor.runAll();
+
+        Assertions.assertTrue(answers.get(0).join());
+        Assertions.assertTrue(answers.get(1).isCancelled());
+        Assertions.assertTrue(answers.get(2).join());
+    }
+
+    @Test
+    public void rejectedTasksCompleteExceptionally() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        CompletableFuture<SolveResults> results = new Problem(Collections.singletonList(LINE)).solveAsync(executor);
+        Assertions.assertTrue(results.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,66 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DynamicPointSetTest {
+
+    @Test
+    public void matchesSolveAfterEveryChange() {
+        checkRandomChanges(new Random(14), ProblemLimits.DEFAULT, 50, 2000);
+    }
+
+    @Test
+    public void matchesSolveWithWideCoordinates() {
+        ProblemLimits limits = new ProblemLimits(1, 1, 1, 200, -100_000, 100_000);
+        checkRandomChanges(new Random(15), limits, 30, 2000);
+    }
+
+    @Test
+    public void boundsAreChecked() {
+        DynamicPointSet points = new DynamicPointSet();
+        Exception empty = Assertions.assertThrows(RuntimeException.class, points::solve);
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 0), empty.getMessage());
+
+        Exception outside = Assertions.assertThrows(RuntimeException.class, () -> points.addPoint(51, 0));
+        Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 0, 0), outside.getMessage());
+
+        for (int i = 0; i < 40; i++) {
+            points.addPoint(0, 0);
+        }
+        Exception full = Assertions.assertThrows(RuntimeException.class, () -> points.addPoint(1, 1));
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 0), full.getMessage());
+        Assertions.assertFalse(points.removePoint(1, 1));
+    }
+
+    /**
+     * The range of the random coordinates is kept small next to the limits, so both answers show up.
+     */
+    private static void checkRandomChanges(Random random, ProblemLimits limits, int range, int steps) {
+        DynamicPointSet dynamic = new DynamicPointSet(limits);
+        List<Point> points = new ArrayList<>();
+        int maxPoints = Math.min(limits.getMaxPoints(), 40);
+        for (int step = 0; step < steps; step++) {
+            boolean add = points.isEmpty() || (points.size() < maxPoints && random.nextInt(3) > 0);
+            if (add) {
+                Point p = new Point(limits.getMinCoordinate() + random.nextInt(range),
+                        limits.getMinCoordinate() + random.nextInt(range));
+                dynamic.addPoint(p.getX(), p.getY());
+                points.add(p);
+            } else {
+                Point p = points.remove(random.nextInt(points.size()));
+                Assertions.assertTrue(dynamic.removePoint(p.getX(), p.getY()));
+            }
+            Assertions.assertEquals(points.size(), dynamic.size());
+            if (!points.isEmpty()) {
+                String expected = new Problem(Collections.singletonList(new ArrayList<>(points)), limits).solve().get(0);
+                Assertions.assertEquals(expected, dynamic.solve(), "Step " + step);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.stanc;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.stanc.engine.Engine;
+import org.stanc.utils.TestDataProvider;
+import org.stanc.utils.TestItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelSolveTest {
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    public static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void sameResultsAndExceptionsAsSequential() {
+        TestDataProvider provider = new TestDataProvider();
+        List<TestItem> items = new ArrayList<>();
+        items.addAll(provider.getEquivalencePartitioningTestData());
+        items.addAll(provider.getBoundaryAnalysisTestData());
+        items.addAll(provider.getCategoryPartitioningTestData());
+        items.addAll(provider.getMutationCoverageTests());
+
+        for (TestItem item : items) {
+            Problem problem = item.getProblem();
+            List<String> expected;
+            try {
+                expected = problem.solve();
+            } catch (RuntimeException e) {
+                Exception actual = Assertions.assertThrows(RuntimeException.class, () -> problem.solveParallel(pool),
+                        item.getDescription());
+                Assertions.assertEquals(e.getMessage(), actual.getMessage(), item.getDescription());
+                Exception tiled = Assertions.assertThrows(RuntimeException.class, () -> problem.solveTiled(pool),
+                        item.getDescription());
+                Assertions.assertEquals(e.getMessage(), tiled.getMessage(), item.getDescription());
+                continue;
+            }
+            Assertions.assertEquals(expected, problem.solveParallel(pool), item.getDescription());
+            Assertions.assertEquals(expected, problem.solveTiled(pool), item.getDescription());
+        }
+    }
+
+    @Test
+    public void unevenBatchKeepsInputOrder() {
+        Random random = new Random(4);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            int n = i % 50 == 0 ? 1500 : 1 + random.nextInt(40);
+            List<Point> points = new ArrayList<>();
+            for (int j = 0; j < n; j++) {
+                points.add(new Point(random.nextInt(1 << 20), random.nextInt(1 << 20)));
+            }
+            subProblems.add(points);
+        }
+        ProblemLimits limits = ProblemLimits.unbounded();
+
+        Problem problem = new Problem(subProblems, limits);
+        Assertions.assertEquals(problem.solve(), problem.solveParallel(pool));
+    }
+
+    @Test
+    public void tiledSolveOfLargeSubproblems() {
+        Random random = new Random(6);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            List<Point> points = new ArrayList<>();
+            for (int j = 0; j < 2000; j++) {
+                points.add(i % 2 == 0
+                        ? new Point(random.nextInt(1 << 24), random.nextInt(1 << 24))
+                        : new Point(random.nextInt(200), random.nextInt(200)));
+            }
+            subProblems.add(points);
+        }
+
+        Problem problem = new Problem(subProblems, ProblemLimits.unbounded());
+        Assertions.assertEquals(problem.solve(), problem.solveTiled(pool));
+
+        Problem radix = new Problem(subProblems, ProblemLimits.unbounded());
+        radix.setWideEngine(Engine.RADIX);
+        Assertions.assertEquals(problem.solve(), radix.solve());
+        Assertions.assertEquals(problem.solve(), radix.solveParallel(pool));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> radix.setWideEngine(Engine.PIGEONHOLE));
+    }
+}
@@ -0,0 +1,116 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.engine.SketchCounter;
+import org.stanc.engine.SpillCounter;
+import org.stanc.engine.ThresholdQuery;
+import org.stanc.metrics.SolverMetrics;
+import org.stanc.metrics.ValidationFailure;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+public class ProblemBatchTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void batchSolvesLikeLists() {
+        Random random = new Random(11);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < 5; s++) {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(40); i++) {
+                points.add(new Point(random.nextInt(51), random.nextInt(51)));
+            }
+            subProblems.add(points);
+        }
+        List<String> expected = new Problem(subProblems).solve();
+
+        ProblemBatch batch = ProblemBatch.of(subProblems, ProblemLimits.DEFAULT);
+        Assertions.assertEquals(5, batch.size());
+        Assertions.assertEquals(subProblems.get(2).size(), batch.pointCount(2));
+        Assertions.assertEquals(subProblems.get(2).get(0).getX(), batch.get(2).getX(0));
+
+        Problem problem = Problem.of(batch);
+        Assertions.assertEquals(expected, problem.solve());
+        Assertions.assertEquals(expected, problem.solveParallel(ForkJoinPool.commonPool()));
+        Assertions.assertEquals(expected, problem.solveTiled(ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    public void boundsAreValidatedOnConstruction() {
+        Exception subProblems = Assertions.assertThrows(RuntimeException.class,
+                () -> new ProblemBatch(new int[0], new int[0], new int[]{0}));
+        Assertions.assertEquals(Problem.INVALID_SUBPROBLEMS_BOUNDS, subProblems.getMessage());
+
+        Exception points = Assertions.assertThrows(RuntimeException.class,
+                () -> new ProblemBatch(new int[]{1, 2}, new int[]{1, 2}, new int[]{0, 2, 2}));
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 1), points.getMessage());
+
+        Exception coordinates = Assertions.assertThrows(RuntimeException.class,
+                () -> new ProblemBatch(new int[]{1, 2, 3}, new int[]{1, 2, -3}, new int[]{0, 1, 3}));
+        Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 1, 1), coordinates.getMessage());
+
+        Exception lists = Assertions.assertThrows(RuntimeException.class,
+                () -> ProblemBatch.of(Arrays.asList(Arrays.asList(new Point(0, 0)), null), ProblemLimits.DEFAULT));
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 1), lists.getMessage());
+    }
+
+    @Test
+    public void firstInvalidSubProblemThrowsAsInSolve() {
+        // subproblem 0 has a coordinate out of bounds, subproblem 1 no points at all: solve() stops at the first one
+        List<List<Point>> subProblems = Arrays.asList(Arrays.asList(new Point(60, 0)), null);
+        Map<String, Consumer<Problem>> entryPoints = new LinkedHashMap<>();
+        entryPoints.put("solve", Problem::solve);
+        entryPoints.put("solveParallel", problem -> problem.solveParallel(ForkJoinPool.commonPool()));
+        entryPoints.put("solveTiled", problem -> problem.solveTiled(ForkJoinPool.commonPool()));
+        entryPoints.put("solveSpilling", problem -> problem.solveSpilling(directory, SpillCounter.MIN_BUDGET));
+        entryPoints.put("solveSketched", problem -> problem.solveSketched(SketchCounter.MIN_BUDGET));
+        entryPoints.put("solveThresholds", problem -> problem.solveThresholds(ThresholdQuery.of(3)));
+        entryPoints.put("solveAsync", problem -> {
+            try {
+                problem.solveAsync(ForkJoinPool.commonPool()).join();
+            } catch (CompletionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        });
+        entryPoints.put("ProblemBatch.of", problem -> ProblemBatch.of(subProblems, ProblemLimits.DEFAULT));
+        for (Map.Entry<String, Consumer<Problem>> entryPoint : entryPoints.entrySet()) {
+            Problem problem = new Problem(subProblems);
+            SolverMetrics metrics = new SolverMetrics();
+            problem.setMetrics(metrics);
+            Exception e = Assertions.assertThrows(RuntimeException.class, () -> entryPoint.getValue().accept(problem),
+                    entryPoint.getKey());
+            Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 0, 0), e.getMessage(),
+                    entryPoint.getKey());
+            if (!entryPoint.getKey().equals("ProblemBatch.of")) {
+                Assertions.assertEquals(1, metrics.snapshot().getValidationFailures(ValidationFailure.COORDINATES_BOUNDS),
+                        entryPoint.getKey());
+                Assertions.assertEquals(0, metrics.snapshot().getValidationFailures(ValidationFailure.POINTS_BOUNDS),
+                        entryPoint.getKey());
+            }
+        }
+    }
+
+    @Test
+    public void malformedColumnsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProblemBatch(new int[]{1, 2}, new int[]{1}, new int[]{0, 1}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProblemBatch(new int[]{1, 2}, new int[]{1, 2}, new int[]{0, 1}));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProblemBatch(new int[]{1, 2}, new int[]{1, 2}, new int[]{0, 2, 1, 2}));
+    }
+}
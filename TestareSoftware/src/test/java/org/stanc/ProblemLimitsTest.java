@@ -0,0 +1,66 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ProblemLimitsTest {
+
+    @Test
+    public void defaultMessagesAreTheProblemOnes() {
+        ProblemLimits limits = ProblemLimits.DEFAULT;
+        Assertions.assertEquals(Problem.INVALID_SUBPROBLEMS_BOUNDS, limits.subProblemsMessage());
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 3), limits.pointsMessage(3));
+        Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 2, 7), limits.coordinatesMessage(2, 7));
+    }
+
+    @Test
+    public void customLimitsAreValidated() {
+        ProblemLimits limits = new ProblemLimits(1, 2, 2, 3, -10, 10);
+        List<Point> valid = Arrays.asList(new Point(-10, -10), new Point(10, 10));
+
+        Exception tooMany = Assertions.assertThrows(RuntimeException.class,
+                () -> new Problem(Arrays.asList(valid, valid, valid), limits).solve());
+        Assertions.assertEquals("The given subproblems array is either null or is outside of bounds [1, 2]",
+                tooMany.getMessage());
+
+        Exception tooFew = Assertions.assertThrows(RuntimeException.class,
+                () -> new Problem(Arrays.asList(valid, Collections.singletonList(new Point(0, 0))), limits).solve());
+        Assertions.assertEquals(limits.pointsMessage(1), tooFew.getMessage());
+
+        Exception outside = Assertions.assertThrows(RuntimeException.class,
+                () -> new Problem(Collections.singletonList(Arrays.asList(new Point(0, 0), new Point(0, 11))), limits).solve());
+        Assertions.assertEquals("The given points coordinates for subproblem number 0, point number 1 are outside of " +
+                "bounds [-10, 10]", outside.getMessage());
+
+        Assertions.assertEquals(Collections.singletonList("FALSE"), new Problem(Collections.singletonList(valid), limits).solve());
+    }
+
+    @Test
+    public void invalidLimitsAreRejected() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ProblemLimits(2, 1, 1, 40, 0, 50));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ProblemLimits(1, 5, 41, 40, 0, 50));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ProblemLimits(1, 5, 1, 40, 51, 50));
+    }
+
+    @Test
+    public void largePointSetsWithWideCoordinates() {
+        Random random = new Random(3);
+        List<Point> spread = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            spread.add(new Point(random.nextInt(), random.nextInt()));
+        }
+        List<Point> line = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            line.add(new Point(Integer.MIN_VALUE + i * 1000, Integer.MAX_VALUE));
+        }
+
+        List<String> results = new Problem(Arrays.asList(spread, line), ProblemLimits.unbounded()).solve();
+        Assertions.assertEquals(Arrays.asList("FALSE", "TRUE"), results);
+    }
+}
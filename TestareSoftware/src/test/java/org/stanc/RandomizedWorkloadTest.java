@@ -0,0 +1,68 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.server.ShardCoordinator;
+import org.stanc.utils.EngineCheck;
+import org.stanc.utils.WorkloadGenerator;
+import org.stanc.utils.WorkloadGenerator.Distribution;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class RandomizedWorkloadTest {
+
+    @Test
+    public void batchesAreSeededAndWithinRange() {
+        for (Distribution distribution : Distribution.values()) {
+            List<List<Point>> batch = new WorkloadGenerator(distribution, 7).batch(4, 30, 50);
+            Assertions.assertEquals(batch.toString(), new WorkloadGenerator(distribution, 7).batch(4, 30, 50).toString(),
+                    distribution.name());
+            Assertions.assertEquals(4, batch.size());
+            for (List<Point> points : batch) {
+                Assertions.assertEquals(30, points.size());
+                for (Point p : points) {
+                    Assertions.assertTrue(p.getX() >= 0 && p.getX() <= 50 && p.getY() >= 0 && p.getY() <= 50,
+                            distribution + " " + p);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void adversarialBatchesAreFalse() {
+        WorkloadGenerator generator = new WorkloadGenerator(Distribution.ADVERSARIAL_FALSE, 8);
+        List<List<Point>> batch = generator.batch(3, 40, 50);
+        Assertions.assertEquals(Collections.nCopies(3, "FALSE"),
+                new Problem(batch, WorkloadGenerator.limitsFor(3, 40, 50)).solve());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> generator.batch(1, 40, 3));
+    }
+
+    @Test
+    public void rejectionsOnlyCountInARow() {
+        // about 146 points fit [0, 200]: over 10000 rejections in total, never 10000 in a row
+        Assertions.assertEquals(140, WorkloadGenerator.falsePoints(140, 200, new Random(10)).size());
+    }
+
+    @Test
+    public void enginesMatchTheReference() throws IOException {
+        int[][] sizes = {{5, 40, 50}, {3, 150, 255}, {2, 1000, 1 << 16}};
+        try (ShardCoordinator shards = ShardCoordinator.launch(2)) {
+            for (Distribution distribution : Distribution.values()) {
+                for (int[] size : sizes) {
+                    int t = size[0];
+                    int n = size[1];
+                    int maxCoordinate = size[2];
+                    List<List<Point>> batch = new WorkloadGenerator(distribution, 9).batch(t, n, maxCoordinate);
+                    List<String> answers = new Problem(batch, WorkloadGenerator.limitsFor(t, n, maxCoordinate))
+                            .solve();
+                    Assertions.assertEquals(Collections.emptyList(),
+                            new EngineCheck(maxCoordinate, shards).mismatches(batch, answers),
+                            distribution + " T=" + t + " N=" + n + " max=" + maxCoordinate);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.UnaryOperator;
+
+public class ResultCacheTest {
+
+    @Test
+    public void symmetricVariantsShareOneEntry() {
+        Random random = new Random(12);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            points.add(new Point(random.nextInt(40), random.nextInt(40)));
+        }
+        List<List<Point>> variants = new ArrayList<>();
+        variants.add(points);
+        variants.add(transform(points, p -> new Point(p.getX() + 10, p.getY() + 5)));
+        variants.add(transform(points, p -> new Point(50 - p.getX(), p.getY())));
+        variants.add(transform(points, p -> new Point(p.getX(), 45 - p.getY())));
+        variants.add(transform(points, p -> new Point(p.getY(), p.getX())));
+        List<Point> shuffled = new ArrayList<>(points);
+        Collections.shuffle(shuffled, random);
+
+        ResultCache cache = new ResultCache(10_000, 0);
+        Problem problem = new Problem(variants);
+        problem.setResultCache(cache);
+        List<String> results = problem.solve();
+        Problem single = new Problem(Collections.singletonList(shuffled));
+        single.setResultCache(cache);
+        single.solve();
+
+        Assertions.assertEquals(new Problem(variants).solve(), results);
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(5, cache.getHits());
+        Assertions.assertEquals(results.get(0), cache.peek(PointSet.of(shuffled)) ? "TRUE" : "FALSE");
+    }
+
+    @Test
+    public void answersMatchWithoutCache() {
+        Random random = new Random(13);
+        ResultCache cache = new ResultCache(2_000, 0);
+        for (int run = 0; run < 200; run++) {
+            List<List<Point>> subProblems = new ArrayList<>();
+            for (int s = 0; s < 5; s++) {
+                List<Point> points = new ArrayList<>();
+                int n = 1 + random.nextInt(12);
+                for (int i = 0; i < n; i++) {
+                    points.add(new Point(random.nextInt(6), random.nextInt(6)));
+                }
+                subProblems.add(points);
+            }
+            Problem cached = new Problem(subProblems);
+            cached.setResultCache(cache);
+            List<String> expected = new Problem(subProblems).solve();
+            Assertions.assertEquals(expected, cached.solve(), "Run " + run);
+            Assertions.assertEquals(expected, cached.solveParallel(ForkJoinPool.commonPool()), "Run " + run);
+        }
+        Assertions.assertTrue(cache.getHits() > 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() {
+        ResultCache cache = new ResultCache(6, 0);
+        List<Point> a = List.of(new Point(0, 0), new Point(1, 0), new Point(3, 0));
+        List<Point> b = List.of(new Point(0, 0), new Point(2, 0), new Point(7, 0));
+        List<Point> c = List.of(new Point(0, 0), new Point(4, 0), new Point(5, 0));
+        solve(cache, a);
+        solve(cache, b);
+        solve(cache, a);
+        solve(cache, c);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(6, cache.getStoredPoints());
+        Assertions.assertEquals(1, cache.getEvictions());
+        Assertions.assertNotNull(cache.peek(PointSet.of(a)));
+        Assertions.assertNull(cache.peek(PointSet.of(b)));
+        Assertions.assertNotNull(cache.peek(PointSet.of(c)));
+    }
+
+    @Test
+    public void smallSubproblemsBypassTheCache() {
+        ResultCache cache = new ResultCache(1_000);
+        solve(cache, List.of(new Point(0, 0), new Point(1, 1)));
+        Assertions.assertEquals(0, cache.size());
+        Assertions.assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void defaultCacheAppliesToDefaultLimits() {
+        Assertions.assertTrue(ResultCache.DEFAULT_MIN_POINTS <= ProblemLimits.DEFAULT.getMaxPoints());
+        ResultCache cache = new ResultCache(1_000);
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < ProblemLimits.DEFAULT.getMaxPoints(); i++) {
+            points.add(new Point(i, i * i % 51));
+        }
+        solve(cache, points);
+        solve(cache, points);
+        Assertions.assertEquals(1, cache.size());
+        Assertions.assertEquals(1, cache.getHits());
+    }
+
+    private static void solve(ResultCache cache, List<Point> points) {
+        Problem problem = new Problem(Collections.singletonList(points));
+        problem.setResultCache(cache);
+        problem.solve();
+    }
+
+    private static List<Point> transform(List<Point> points, UnaryOperator<Point> operator) {
+        List<Point> transformed = new ArrayList<>();
+        for (Point p : points) {
+            transformed.add(operator.apply(p));
+        }
+        return transformed;
+    }
+}
@@ -0,0 +1,85 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.metrics.SolverMetrics;
+import org.stanc.metrics.ValidationFailure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class SolveEachTest {
+
+    private static List<Point> randomPoints(Random random) {
+        List<Point> points = new ArrayList<>();
+        int n = 1 + random.nextInt(40);
+        for (int i = 0; i < n; i++) {
+            points.add(new Point(random.nextInt(51), random.nextInt(51)));
+        }
+        return points;
+    }
+
+    @Test
+    public void validSubProblemsMatchSolve() {
+        Random random = new Random(51);
+        for (int run = 0; run < 50; run++) {
+            List<List<Point>> subProblems = new ArrayList<>();
+            for (int s = 0; s < 1 + random.nextInt(5); s++) {
+                subProblems.add(randomPoints(random));
+            }
+            List<String> expected = new Problem(subProblems).solve();
+            List<SubProblemResult> results = new Problem(subProblems).solveEach();
+            Assertions.assertEquals(expected.size(), results.size());
+            for (int s = 0; s < expected.size(); s++) {
+                Assertions.assertFalse(results.get(s).isError());
+                Assertions.assertEquals(expected.get(s), results.get(s).toString());
+                Assertions.assertEquals("TRUE".equals(expected.get(s)), results.get(s).getAnswer());
+            }
+            Assertions.assertEquals(expected.toString(), Problem.of(ProblemBatch.of(subProblems, ProblemLimits.DEFAULT))
+                    .solveEach().toString());
+        }
+    }
+
+    @Test
+    public void invalidSubProblemsGetTheSolveMessage() {
+        List<Point> valid = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 3), new Point(4, 4));
+        List<Point> badCoordinate = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 51));
+        List<Point> tooMany = Collections.nCopies(41, new Point(1, 1));
+        List<List<Point>> subProblems = Arrays.asList(valid, badCoordinate, null, tooMany, valid);
+
+        SolverMetrics metrics = new SolverMetrics();
+        Problem problem = new Problem(subProblems);
+        problem.setMetrics(metrics);
+        List<SubProblemResult> results = problem.solveEach();
+
+        Assertions.assertEquals(5, results.size());
+        Assertions.assertSame(SubProblemResult.TRUE, results.get(0));
+        Assertions.assertSame(SubProblemResult.TRUE, results.get(4));
+
+        Assertions.assertEquals(ValidationFailure.COORDINATES_BOUNDS, results.get(1).getError());
+        Assertions.assertEquals(2, results.get(1).getPointIndex());
+        Assertions.assertEquals(ValidationFailure.POINTS_BOUNDS, results.get(2).getError());
+        Assertions.assertEquals(ValidationFailure.POINTS_BOUNDS, results.get(3).getError());
+        for (int s = 1; s <= 3; s++) {
+            List<List<Point>> alone = new ArrayList<>(Collections.nCopies(s, valid));
+            alone.add(subProblems.get(s));
+            String expected = Assertions.assertThrows(RuntimeException.class, () -> new Problem(alone).solve()).getMessage();
+            Assertions.assertEquals(expected, results.get(s).getMessage());
+            Assertions.assertTrue(results.get(s).isError());
+            Assertions.assertThrows(IllegalStateException.class, results.get(s)::getAnswer);
+        }
+
+        Assertions.assertEquals(2, metrics.snapshot().getSolved());
+        Assertions.assertEquals(1, metrics.snapshot().getValidationFailures(ValidationFailure.COORDINATES_BOUNDS));
+        Assertions.assertEquals(2, metrics.snapshot().getValidationFailures(ValidationFailure.POINTS_BOUNDS));
+    }
+
+    @Test
+    public void subProblemsCountStillThrows() {
+        Assertions.assertThrows(RuntimeException.class, () -> new Problem(null).solveEach());
+        Assertions.assertThrows(RuntimeException.class, () -> new Problem(Collections.emptyList()).solveEach());
+    }
+}
@@ -0,0 +1,217 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.RandomSubProblems;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+public class SolveProcessorTest {
+
+    private static final List<Point> LINE = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 3),
+            new Point(4, 4));
+
+    /**
+     * Publishes the subproblems of a list on the thread asking for them, and remembers how many were asked for.
+     */
+    private static final class ListPublisher implements Flow.Publisher<List<Point>> {
+
+        final List<List<Point>> subProblems;
+        long requested;
+        boolean cancelled;
+        int next;
+
+        ListPublisher(List<List<Point>> subProblems) {
+            this.subProblems = subProblems;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super List<Point>> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    requested += n;
+                    while (next < Math.min(requested, subProblems.size()) && !cancelled) {
+                        subscriber.onNext(subProblems.get(next++));
+                    }
+                    if (next == subProblems.size() && !cancelled) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Collects the results, asking for them one at a time when step is true.
+     */
+    private static final class Collector implements Flow.Subscriber<SubProblemResult> {
+
+        final List<SubProblemResult> results = Collections.synchronizedList(new ArrayList<>());
+        final CompletableFuture<List<SubProblemResult>> done = new CompletableFuture<>();
+        final long initial;
+        Flow.Subscription subscription;
+
+        Collector(long initial) {
+            this.initial = initial;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initial);
+        }
+
+        @Override
+        public void onNext(SubProblemResult item) {
+            results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(results);
+        }
+    }
+
+    @Test
+    public void resultsComeInOrder() throws Exception {
+        Random random = new Random(19);
+        List<List<Point>> subProblems = RandomSubProblems.of(random, 500);
+        subProblems.set(7, Collections.emptyList());
+        subProblems.set(300, Collections.singletonList(new Point(60, 0)));
+        ProblemLimits limits = new ProblemLimits(1, 1000, 1, 40, 0, 50);
+        List<SubProblemResult> expected = new Problem(subProblems, limits).solveEach();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            SolveProcessor processor = Problem.processor(limits, executor, 8);
+            Collector collector = new Collector(Long.MAX_VALUE);
+            try (SubmissionPublisher<List<Point>> publisher = new SubmissionPublisher<>(ForkJoinPool.commonPool(), 16)) {
+                publisher.subscribe(processor);
+                processor.subscribe(collector);
+                for (List<Point> subProblem : subProblems) {
+                    publisher.submit(subProblem);
+                }
+            }
+
+            List<SubProblemResult> results = collector.done.get(30, TimeUnit.SECONDS);
+            Assertions.assertEquals(expected.size(), results.size());
+            for (int s = 0; s < expected.size(); s++) {
+                Assertions.assertEquals(expected.get(s).toString(), results.get(s).toString(), "Subproblem " + s);
+            }
+            Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 7), results.get(7).getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void upstreamFollowsTheDemand() {
+        ListPublisher publisher = new ListPublisher(Collections.nCopies(100, LINE));
+        SolveProcessor processor = new SolveProcessor(ProblemLimits.DEFAULT, Runnable::run, 4);
+        Collector collector = new Collector(2);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+
+        Assertions.assertEquals(2, publisher.requested);
+        Assertions.assertEquals(2, collector.results.size());
+        collector.subscription.request(50);
+        Assertions.assertEquals(52, collector.results.size());
+        Assertions.assertFalse(collector.done.isDone());
+        collector.subscription.request(Long.MAX_VALUE);
+        Assertions.assertEquals(100, collector.done.join().size());
+    }
+
+    @Test
+    public void inFlightIsBounded() {
+        List<Runnable> tasks = new ArrayList<>();
+        ListPublisher publisher = new ListPublisher(Collections.nCopies(100, LINE));
+        SolveProcessor processor = new SolveProcessor(ProblemLimits.DEFAULT, tasks::add, 4);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        publisher.subscribe(processor);
+
+        Assertions.assertEquals(4, publisher.requested);
+        Assertions.assertEquals(4, tasks.size());
+        tasks.remove(3).run();
+        Assertions.assertEquals(4, publisher.requested, "A result out of order is kept, and keeps its slot");
+        Assertions.assertTrue(collector.results.isEmpty());
+        tasks.remove(0).run();
+        Assertions.assertEquals(1, collector.results.size());
+        Assertions.assertEquals(5, publisher.requested);
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+        Assertions.assertEquals(100, collector.done.join().size());
+    }
+
+    @Test
+    public void cancelCancelsUpstreamAndTheSubProblems() {
+        List<Runnable> tasks = new ArrayList<>();
+        ListPublisher publisher = new ListPublisher(Collections.nCopies(100, LINE));
+        SolveProcessor processor = new SolveProcessor(ProblemLimits.DEFAULT, tasks::add, 4);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        publisher.subscribe(processor);
+        processor.subscribe(collector);
+
+        collector.subscription.cancel();
+        Assertions.assertTrue(publisher.cancelled);
+        tasks.forEach(Runnable::run);
+        Assertions.assertTrue(collector.results.isEmpty());
+        Assertions.assertFalse(collector.done.isDone());
+    }
+
+    @Test
+    public void errorsArePassedOn() {
+        SolveProcessor processor = new SolveProcessor(ProblemLimits.DEFAULT, Runnable::run, 4);
+        Collector collector = new Collector(Long.MAX_VALUE);
+        processor.subscribe(collector);
+        processor.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        processor.onNext(LINE);
+        processor.onError(new IllegalStateException("parse error"));
+        Assertions.assertEquals(Collections.singletonList(SubProblemResult.TRUE), collector.results);
+        Assertions.assertEquals("parse error", Assertions.assertThrows(Exception.class, collector.done::join)
+                .getCause().getMessage());
+
+        Collector second = new Collector(1);
+        processor.subscribe(second);
+        Assertions.assertTrue(second.done.isCompletedExceptionally());
+
+        SolveProcessor other = new SolveProcessor(ProblemLimits.DEFAULT, Runnable::run, 4);
+        Collector negative = new Collector(0);
+        other.subscribe(negative);
+        Assertions.assertTrue(negative.done.isCompletedExceptionally());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SolveProcessor(ProblemLimits.DEFAULT,
+                Runnable::run, 0));
+    }
+}
@@ -0,0 +1,76 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class SolveResultsTest {
+
+    @Test
+    public void bitsMatchTheStringResults() {
+        Random random = new Random(61);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < 150; s++) {
+            List<Point> points = new ArrayList<>();
+            int n = 1 + random.nextInt(40);
+            for (int i = 0; i < n; i++) {
+                points.add(new Point(random.nextInt(51), random.nextInt(51)));
+            }
+            subProblems.add(points);
+        }
+        ProblemLimits limits = new ProblemLimits(1, 1000, 1, 40, 0, 50);
+        List<String> expected = new Problem(subProblems, limits).solve();
+        SolveResults results = new Problem(subProblems, limits).solveResults();
+
+        Assertions.assertEquals(150, results.size());
+        Assertions.assertEquals(expected, results.toList());
+        Assertions.assertEquals(Collections.frequency(expected, "TRUE"), results.countTrue());
+        Assertions.assertEquals(Collections.frequency(expected, "FALSE"), results.countFalse());
+        Assertions.assertEquals(0, results.countErrors());
+
+        List<Integer> trueIndexes = new ArrayList<>();
+        List<Integer> falseIndexes = new ArrayList<>();
+        results.forEachTrue(trueIndexes::add);
+        results.forEachFalse(falseIndexes::add);
+        for (int s = 0; s < 150; s++) {
+            Assertions.assertEquals("TRUE".equals(expected.get(s)), trueIndexes.contains(s));
+            Assertions.assertEquals("FALSE".equals(expected.get(s)), falseIndexes.contains(s));
+        }
+        Assertions.assertEquals(-1, results.nextTrue(150));
+    }
+
+    @Test
+    public void errorsAreInvalidBits() {
+        List<Point> valid = Arrays.asList(new Point(1, 1), new Point(2, 2), new Point(3, 3), new Point(4, 4));
+        List<Point> pair = Arrays.asList(new Point(1, 1), new Point(2, 2));
+        List<Point> badCoordinate = Arrays.asList(new Point(1, 1), new Point(-2, 2));
+        SolveResults results = new Problem(Arrays.asList(valid, badCoordinate, pair, null)).solveEachResults();
+
+        Assertions.assertEquals(1, results.countTrue());
+        Assertions.assertEquals(1, results.countFalse());
+        Assertions.assertEquals(2, results.countErrors());
+        Assertions.assertTrue(results.isValid(0));
+        Assertions.assertFalse(results.isValid(1));
+        Assertions.assertFalse(results.isValid(3));
+        Assertions.assertNull(results.getError(0));
+        Assertions.assertEquals(1, results.getError(1).getPointIndex());
+        Assertions.assertThrows(IllegalStateException.class, () -> results.get(3));
+        Assertions.assertThrows(IllegalStateException.class, results::toList);
+        Assertions.assertEquals(2, results.nextFalse(0));
+        Assertions.assertEquals(-1, results.nextTrue(1));
+    }
+
+    @Test
+    public void wordsRoundTrip() {
+        SolveResults results = SolveResults.of(new boolean[]{true, false, true});
+        SolveResults copy = SolveResults.fromWords(3, results.toAnswerWords(), results.toValidWords());
+        Assertions.assertEquals(results, copy);
+        Assertions.assertEquals(Arrays.asList("TRUE", "FALSE", "TRUE"), copy.toList());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SolveResults.fromWords(65, new long[1], new long[1]));
+    }
+}
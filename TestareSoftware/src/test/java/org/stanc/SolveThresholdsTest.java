@@ -0,0 +1,46 @@
+package org.stanc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.engine.ThresholdQuery;
+import org.stanc.engine.ThresholdResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class SolveThresholdsTest {
+
+    @Test
+    public void thresholdThreeIsSolve() {
+        Random random = new Random(22);
+        for (int run = 0; run < 50; run++) {
+            List<List<Point>> subProblems = new ArrayList<>();
+            int count = 1 + random.nextInt(5);
+            for (int s = 0; s < count; s++) {
+                List<Point> points = new ArrayList<>();
+                int n = 1 + random.nextInt(40);
+                for (int i = 0; i < n; i++) {
+                    points.add(new Point(random.nextInt(51), random.nextInt(51)));
+                }
+                subProblems.add(points);
+            }
+            List<String> expected = new Problem(subProblems).solve();
+            List<ThresholdResult> results = new Problem(subProblems).solveThresholds(ThresholdQuery.of(3, 6));
+            Assertions.assertEquals(expected.size(), results.size());
+            for (int s = 0; s < expected.size(); s++) {
+                Assertions.assertEquals("TRUE".equals(expected.get(s)), results.get(s).reaches(3));
+            }
+        }
+    }
+
+    @Test
+    public void sameExceptionsAsSolve() {
+        List<List<Point>> subProblems = Arrays.asList(Arrays.asList(new Point(1, 1), new Point(51, 1)));
+        Exception expected = Assertions.assertThrows(RuntimeException.class, () -> new Problem(subProblems).solve());
+        Exception thrown = Assertions.assertThrows(RuntimeException.class,
+                () -> new Problem(subProblems).solveThresholds(ThresholdQuery.of(3)));
+        Assertions.assertEquals(expected.getMessage(), thrown.getMessage());
+    }
+}
@@ -0,0 +1,77 @@
+package org.stanc;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class SolverEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void subProblemEventsCarryTheWork() throws Exception {
+        List<Point> collinear = Arrays.asList(new Point(0, 0), new Point(1, 0), new Point(2, 0), new Point(3, 0),
+                new Point(4, 0));
+        List<Point> triangle = Arrays.asList(new Point(0, 0), new Point(5, 7), new Point(9, 1));
+        Path file = tempDir.resolve("solve.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("org.stanc.Solve").withThreshold(Duration.ZERO);
+            recording.enable("org.stanc.SubProblem").withThreshold(Duration.ZERO);
+            recording.start();
+            new Problem(Arrays.asList(collinear, triangle)).solve();
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        List<RecordedEvent> subProblems = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.stanc.SubProblem"))
+                .collect(Collectors.toList());
+        Assertions.assertEquals(2, subProblems.size());
+
+        RecordedEvent first = subProblems.get(0);
+        Assertions.assertEquals(0, first.getInt("index"));
+        Assertions.assertEquals(5, first.getInt("points"));
+        Assertions.assertTrue(first.getBoolean("result"));
+        Assertions.assertEquals(8, first.getLong("pairsVisited"));
+        Assertions.assertEquals(4, first.getLong("distinctKeys"));
+
+        RecordedEvent second = subProblems.get(1);
+        Assertions.assertEquals(1, second.getInt("index"));
+        Assertions.assertFalse(second.getBoolean("result"));
+        Assertions.assertEquals(3, second.getLong("pairsVisited"));
+        Assertions.assertEquals(3, second.getLong("distinctKeys"));
+
+        RecordedEvent solve = events.stream()
+                .filter(e -> e.getEventType().getName().equals("org.stanc.Solve"))
+                .findFirst().orElseThrow(AssertionError::new);
+        Assertions.assertEquals("solve", solve.getString("method"));
+        Assertions.assertEquals(2, solve.getInt("subProblems"));
+        Assertions.assertEquals(8, solve.getLong("points"));
+        Assertions.assertEquals(1, solve.getInt("trueAnswers"));
+    }
+
+    @Test
+    public void settingsProfileIsValid() throws Exception {
+        try (Reader reader = new InputStreamReader(getClass().getResourceAsStream("/solver.jfc"), StandardCharsets.UTF_8)) {
+            Configuration configuration = Configuration.create(reader);
+            Assertions.assertEquals("5 ms", configuration.getSettings().get("org.stanc.SubProblem#threshold"));
+            Assertions.assertEquals("20 ms", configuration.getSettings().get("org.stanc.Solve#threshold"));
+        }
+    }
+}
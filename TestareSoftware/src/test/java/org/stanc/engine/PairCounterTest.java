@@ -0,0 +1,167 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+
+public class PairCounterTest {
+
+    private static final int RUNS = 2000;
+
+    @Test
+    public void denseCounterMatchesReference() {
+        Random random = new Random(1);
+        DenseCounter counter = new DenseCounter(50);
+        int[] xs = new int[40];
+        int[] ys = new int[40];
+        for (int run = 0; run < RUNS; run++) {
+            int n = 1 + random.nextInt(40);
+            fill(random, xs, ys, n, 0, 50);
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), counter.hasTriple(xs, ys, 0, n), "Run " + run);
+        }
+    }
+
+    @Test
+    public void hashCounterMatchesReference() {
+        Random random = new Random(2);
+        HashCounter counter = new HashCounter();
+        int[] xs = new int[200];
+        int[] ys = new int[200];
+        for (int run = 0; run < RUNS; run++) {
+            int n = 1 + random.nextInt(200);
+            if (run % 2 == 0) {
+                fill(random, xs, ys, n, 0, 50);
+            } else {
+                fill(random, xs, ys, n, -1_000_000, 1_000_000);
+            }
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), counter.hasTriple(xs, ys, 0, n), "Run " + run);
+        }
+    }
+
+    @Test
+    public void tiledCounterMatchesReference() {
+        Random random = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TiledPairCounter dense = new TiledPairCounter(pool, 255);
+            TiledPairCounter wide = new TiledPairCounter(pool, (1L << 32) - 1);
+            int[] xs = new int[1500];
+            int[] ys = new int[1500];
+            for (int run = 0; run < 10; run++) {
+                int n = 300 + random.nextInt(700);
+                fill(random, xs, ys, n, 0, 255);
+                Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), dense.hasTriple(xs, ys, 0, n), "Run " + run);
+                fill(random, xs, ys, n, -(1 << 29), 1 << 29);
+                Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), wide.hasTriple(xs, ys, 0, n), "Run " + run);
+            }
+            for (int i = 0; i < 1000; i++) {
+                xs[i] = i * 7;
+                ys[i] = i % 2;
+            }
+            Assertions.assertTrue(wide.hasTriple(xs, ys, 0, 1000));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void hashCounterHandlesFullIntRange() {
+        HashCounter counter = new HashCounter();
+        int[] xs = {Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE};
+        int[] ys = {Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        Assertions.assertFalse(counter.hasTriple(xs, ys, 0, 4));
+
+        int[] line = {Integer.MIN_VALUE, 0, Integer.MAX_VALUE, Integer.MAX_VALUE};
+        int[] zeros = {0, 0, 0, 0};
+        Assertions.assertEquals(ReferenceSolver.hasTriple(line, zeros, 4), counter.hasTriple(line, zeros, 0, 4));
+    }
+
+    @Test
+    public void duplicatePointsShareTheZeroKey() {
+        int[] xs = {7, 7, 7};
+        int[] ys = {3, 3, 3};
+        Assertions.assertTrue(new DenseCounter(50).hasTriple(xs, ys, 0, 3));
+        Assertions.assertTrue(new HashCounter().hasTriple(xs, ys, 0, 3));
+    }
+
+    @Test
+    public void pairsExaminedStopAtTheTriple() {
+        // 5 points on a line: |dx| = 1 for the pairs (0,1) (1,2) (2,3), the 8th pair of 10 in row order
+        int[] xs = {0, 1, 2, 3, 4};
+        int[] ys = {0, 0, 0, 0, 0};
+        for (PairCounter counter : new PairCounter[]{new DenseCounter(50), new HashCounter()}) {
+            Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 5));
+            Assertions.assertEquals(8, counter.pairsExamined());
+            Assertions.assertFalse(counter.hasTriple(xs, ys, 2, 5));
+            Assertions.assertEquals(11, counter.pairsExamined());
+        }
+        Assertions.assertEquals(10, PairCounter.pairCount(0, 5));
+        Assertions.assertEquals(8, PairCounter.pairsUpTo(0, 5, 2, 3));
+    }
+
+    @Test
+    public void stoppedRunThrowsAndCountsNothing() {
+        int[] xs = {0, 1, 2, 3, 4};
+        int[] ys = {0, 0, 0, 0, 0};
+        StopSignal stop = new StopSignal();
+        stop.stop();
+        for (PairCounter counter : new PairCounter[]{new DenseCounter(50), new HashCounter(),
+                new TiledPairCounter(ForkJoinPool.commonPool(), 50), new PlanningCounter(50)}) {
+            Assertions.assertThrows(CancellationException.class, () -> counter.hasTriple(xs, ys, 0, 5, stop));
+            Assertions.assertEquals(0, counter.pairsExamined());
+            Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 5, new StopSignal()));
+            Assertions.assertFalse(counter.hasTriple(xs, ys, 2, 5));
+        }
+        Assertions.assertThrows(UnsupportedOperationException.class, StopSignal.NONE::stop);
+        Assertions.assertFalse(StopSignal.NONE.isStopped());
+    }
+
+    @Test
+    public void longIntHashMapGrowsAndClears() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long key = -5000; key < 5000; key++) {
+            Assertions.assertEquals(1, map.addTo(key, 1));
+        }
+        Assertions.assertEquals(10000, map.size());
+        Assertions.assertEquals(2, map.addTo(0, 1));
+        Assertions.assertEquals(1, map.get(-5000));
+        Assertions.assertEquals(0, map.get(5000));
+        map.clear();
+        Assertions.assertEquals(0, map.size());
+        Assertions.assertEquals(0, map.get(0));
+        Assertions.assertEquals(0, map.get(42));
+    }
+
+    @Test
+    public void longIntHashMapRemovesKeys() {
+        Random random = new Random(16);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 50_000; step++) {
+            long key = random.nextInt(500) - 250;
+            if (random.nextBoolean()) {
+                Assertions.assertEquals(expected.merge(key, 1, Integer::sum).intValue(), map.addTo(key, 1));
+            } else {
+                Integer removed = expected.remove(key);
+                Assertions.assertEquals(removed == null ? 0 : removed, map.remove(key));
+            }
+            Assertions.assertEquals(expected.size(), map.size());
+        }
+        for (long key = -250; key < 250; key++) {
+            Assertions.assertEquals(expected.getOrDefault(key, 0).intValue(), map.get(key));
+        }
+    }
+
+    static void fill(Random random, int[] xs, int[] ys, int n, int min, int max) {
+        for (int i = 0; i < n; i++) {
+            xs[i] = min + random.nextInt(max - min + 1);
+            ys[i] = min + random.nextInt(max - min + 1);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.Random;
+
+public class PlanningCounterTest {
+
+    @Test
+    public void planningCounterMatchesReference() {
+        Random random = new Random(41);
+        PlanningCounter bounded = new PlanningCounter(50);
+        PlanningCounter wide = new PlanningCounter((1L << 32) - 1);
+        int[] xs = new int[300];
+        int[] ys = new int[300];
+        int[] spreads = {0, 3, 10, 50, 255, 256, 100_000, 1 << 29};
+        for (int run = 0; run < 2000; run++) {
+            int n = 1 + random.nextInt(run % 2 == 0 ? 40 : 300);
+            int spread = spreads[random.nextInt(spreads.length)];
+            int origin = random.nextInt(1000) - 500;
+            PairCounterTest.fill(random, xs, ys, n, origin, origin + spread);
+            boolean expected = ReferenceSolver.hasTriple(xs, ys, n);
+            Assertions.assertEquals(expected, wide.hasTriple(xs, ys, 0, n), "Run " + run);
+            if (spread <= 50) {
+                PairCounterTest.fill(random, xs, ys, n, 0, spread);
+                Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), bounded.hasTriple(xs, ys, 0, n), "Run " + run);
+            }
+        }
+    }
+
+    @Test
+    public void engineFollowsSizeAndSpread() {
+        // 2 points: a single pair can't make a triple
+        Assertions.assertEquals(Engine.PIGEONHOLE, PlanningCounter.plan(new int[]{0, 1_000_000}, new int[]{0, 5}, 0, 2));
+
+        // 40 points in a 5 x 5 square: 780 pairs over at most 25 keys
+        int[] xs = new int[40];
+        int[] ys = new int[40];
+        for (int i = 0; i < 40; i++) {
+            xs[i] = 100 + i % 5;
+            ys[i] = 7 + i / 8;
+        }
+        Assertions.assertEquals(Engine.PIGEONHOLE, PlanningCounter.plan(xs, ys, 0, 40));
+        PlanningCounter counter = new PlanningCounter(1L << 32);
+        Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 40));
+        Assertions.assertEquals(Engine.PIGEONHOLE, counter.getLastEngine());
+        Assertions.assertEquals(0, counter.pairsExamined());
+
+        // the same shape spread over 51 x 51: counted, densely even when the limits are wide
+        for (int i = 0; i < 40; i++) {
+            xs[i] = 1_000_000 + (i * 37) % 51;
+            ys[i] = (i * 11) % 51;
+        }
+        xs[0] = 1_000_000;
+        xs[1] = 1_000_050;
+        Assertions.assertEquals(Engine.DENSE, PlanningCounter.plan(xs, ys, 0, 40));
+        Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, 40), counter.hasTriple(xs, ys, 0, 40));
+        Assertions.assertEquals(Engine.DENSE, counter.getLastEngine());
+        Assertions.assertTrue(counter.pairsExamined() > 0);
+
+        xs[1] = 1_000_256;
+        Assertions.assertEquals(Engine.HASH, PlanningCounter.plan(xs, ys, 0, 40));
+        Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, 40), counter.hasTriple(xs, ys, 0, 40));
+        Assertions.assertEquals(Engine.HASH, counter.getLastEngine());
+    }
+
+    @Test
+    public void pigeonholeBoundDoesNotOverflow() {
+        int[] xs = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 1};
+        int[] ys = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, 1};
+        Assertions.assertEquals(Engine.HASH, PlanningCounter.plan(xs, ys, 0, 4));
+        Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, 4), new PlanningCounter(1L << 32).hasTriple(xs, ys, 0, 4));
+    }
+}
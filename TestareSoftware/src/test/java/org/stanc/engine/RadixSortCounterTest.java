@@ -0,0 +1,72 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+public class RadixSortCounterTest {
+
+    @Test
+    public void matchesTheReference() {
+        Random random = new Random(21);
+        RadixSortCounter counter = new RadixSortCounter();
+        int[] xs = new int[300];
+        int[] ys = new int[300];
+        for (int run = 0; run < 300; run++) {
+            int n = random.nextInt(301);
+            int max = run % 3 == 0 ? 50 : run % 3 == 1 ? 100_000 : 1 << 29;
+            PairCounterTest.fill(random, xs, ys, n, -max, max);
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), counter.hasTriple(xs, ys, 0, n), "Run " + run);
+        }
+    }
+
+    @Test
+    public void matchesHashingAcrossManyBlocks() {
+        Random random = new Random(22);
+        int n = 3000;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int range : new int[]{1 << 29, 1 << 14, 1 << 12}) {
+            PairCounterTest.fill(random, xs, ys, n, 0, range);
+            HashCounter hash = new HashCounter();
+            RadixSortCounter radix = new RadixSortCounter();
+            Assertions.assertEquals(hash.hasTriple(xs, ys, 0, n), radix.hasTriple(xs, ys, 0, n), "Range " + range);
+            Assertions.assertTrue(radix.pairsExamined() >= hash.pairsExamined());
+        }
+    }
+
+    @Test
+    public void keysAboveTheSignBitAreOrdered() {
+        // |dx| = 2^32 - 1 and 2^31 set the top bit of the packed key: the merge must compare unsigned
+        int[] xs = {Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1, Integer.MIN_VALUE, 0};
+        int[] ys = {0, 0, 0, 0, 5, 5};
+        Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, 6), new RadixSortCounter().hasTriple(xs, ys, 0, 6));
+        int[] line = new int[RadixSortCounter.MIN_BLOCK];
+        int[] zeros = new int[line.length];
+        for (int i = 0; i < line.length; i++) {
+            line[i] = Integer.MIN_VALUE + i * 1_000_003;
+        }
+        Assertions.assertEquals(ReferenceSolver.hasTriple(line, zeros, line.length),
+                new RadixSortCounter().hasTriple(line, zeros, 0, line.length));
+    }
+
+    @Test
+    public void planningCounterUsesItWhenAsked() {
+        int[] xs = {0, 1000, 2000, 3000, 4000};
+        int[] ys = {0, 0, 0, 0, 0};
+        PlanningCounter counter = new PlanningCounter(1L << 32, Engine.RADIX);
+        Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 5));
+        Assertions.assertEquals(Engine.RADIX, counter.getLastEngine());
+        Assertions.assertEquals(10, counter.pairsExamined());
+        Assertions.assertTrue(counter.hasTriple(new int[]{0, 1, 2, 3}, new int[]{0, 0, 0, 0}, 0, 4));
+        Assertions.assertEquals(Engine.DENSE, counter.getLastEngine());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PlanningCounter(50, Engine.DENSE));
+
+        StopSignal stop = new StopSignal();
+        stop.stop();
+        Assertions.assertThrows(CancellationException.class, () -> new RadixSortCounter().hasTriple(xs, ys, 0, 5, stop));
+    }
+}
@@ -0,0 +1,120 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+public class SketchCounterTest {
+
+    @Test
+    public void screeningMatchesHashing() {
+        Random random = new Random(25);
+        SketchCounter counter = new SketchCounter(SketchCounter.MIN_BUDGET);
+        int n = 1500;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int range : new int[]{1 << 29, 1 << 13, 1 << 11, 1 << 8}) {
+            PairCounterTest.fill(random, xs, ys, n, 0, range);
+            Assertions.assertEquals(new HashCounter().hasTriple(xs, ys, 0, n), counter.hasTriple(xs, ys, 0, n),
+                    "Range " + range);
+            // 1500 points over 257 x 257 are answered by the pigeonhole principle
+            Assertions.assertEquals(range == 1 << 8, counter.getLastCandidates() == -1, "Range " + range);
+        }
+    }
+
+    @Test
+    public void denseRunsSkipTheSketch() {
+        Random random = new Random(30);
+        SketchCounter counter = new SketchCounter(SketchCounter.MIN_BUDGET);
+        int n = 200;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        PairCounterTest.fill(random, xs, ys, n, 0, DenseCounter.MAX_DELTA);
+        Assertions.assertEquals(new HashCounter().hasTriple(xs, ys, 0, n), counter.hasTriple(xs, ys, 0, n));
+        Assertions.assertEquals(-1, counter.getLastCandidates());
+    }
+
+    @Test
+    public void largeBudgetsFitARow() {
+        Assertions.assertEquals(16, SketchCounter.widthBits(SketchCounter.MIN_BUDGET));
+        Assertions.assertEquals(35, SketchCounter.widthBits(64L << 30));
+        Assertions.assertEquals(35, SketchCounter.widthBits(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void sparsePairsLeaveFewCandidates() {
+        Random random = new Random(26);
+        int n = 1500;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        PairCounterTest.fill(random, xs, ys, n, 0, 1 << 29);
+        SketchCounter counter = new SketchCounter(1 << 20);
+        Assertions.assertFalse(counter.hasTriple(xs, ys, 0, n));
+        Assertions.assertTrue(counter.getLastCandidates() < 100, "Candidates " + counter.getLastCandidates());
+        Assertions.assertEquals(2 * PairCounter.pairCount(0, n), counter.pairsExamined());
+    }
+
+    @Test
+    public void saturatedSketchStaysExact() {
+        // a sketch far too small for the pairs: most keys become candidates, the answers don't change
+        Random random = new Random(27);
+        SketchCounter counter = new SketchCounter(SketchCounter.MIN_BUDGET);
+        int n = 3000;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int range : new int[]{1 << 29, 1 << 12}) {
+            PairCounterTest.fill(random, xs, ys, n, 0, range);
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), counter.hasTriple(xs, ys, 0, n),
+                    "Range " + range);
+        }
+    }
+
+    @Test
+    public void smallRunsStayInMemory() {
+        SketchCounter counter = new SketchCounter(SketchCounter.MIN_BUDGET);
+        int[] xs = {0, 1, 2, 3, 4};
+        int[] ys = {0, 0, 0, 0, 0};
+        Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 5));
+        Assertions.assertEquals(-1, counter.getLastCandidates());
+        Assertions.assertEquals(8, counter.pairsExamined());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SketchCounter(1000));
+    }
+
+    @Test
+    public void stoppedRunThrows() {
+        Random random = new Random(28);
+        int n = 1000;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        PairCounterTest.fill(random, xs, ys, n, 0, 1 << 29);
+        StopSignal stop = new StopSignal();
+        stop.stop();
+        SketchCounter counter = new SketchCounter(SketchCounter.MIN_BUDGET);
+        Assertions.assertThrows(CancellationException.class, () -> counter.hasTriple(xs, ys, 0, n, stop));
+        Assertions.assertEquals(0, counter.pairsExamined());
+    }
+
+    @Test
+    public void problemSolvesSketched() {
+        Random random = new Random(29);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                points.add(new Point(random.nextInt(s == 0 ? 1 << 20 : 1 << 11), random.nextInt(1 << 20)));
+            }
+            subProblems.add(points);
+        }
+        subProblems.add(List.of(new Point(0, 0), new Point(1, 1), new Point(2, 2), new Point(3, 3)));
+        Problem problem = new Problem(subProblems, ProblemLimits.unbounded());
+        Assertions.assertEquals(problem.solve(), problem.solveSketched(SketchCounter.MIN_BUDGET));
+    }
+}
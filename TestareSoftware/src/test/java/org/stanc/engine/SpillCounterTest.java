@@ -0,0 +1,126 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Stream;
+
+public class SpillCounterTest {
+
+    @TempDir
+    Path directory;
+
+    private boolean isEmpty(Path path) throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            return !files.findAny().isPresent();
+        }
+    }
+
+    @Test
+    public void partitionsMatchHashing() throws IOException {
+        Random random = new Random(22);
+        SpillCounter counter = new SpillCounter(directory, SpillCounter.MIN_BUDGET);
+        int n = 1500;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int range : new int[]{1 << 29, 1 << 13, 1 << 11}) {
+            PairCounterTest.fill(random, xs, ys, n, 0, range);
+            Assertions.assertEquals(new HashCounter().hasTriple(xs, ys, 0, n), counter.hasTriple(xs, ys, 0, n),
+                    "Range " + range);
+            Assertions.assertEquals(32, counter.getLastPartitions());
+            Assertions.assertTrue(isEmpty(directory));
+            if (range == 1 << 29) {
+                // 32 partitions of about 35000 distinct keys, each split again to fit 5461 keys
+                Assertions.assertEquals(32 + 32 * 32, counter.getLastFiles());
+            }
+        }
+        Assertions.assertEquals(3 * PairCounter.pairCount(0, n), counter.pairsExamined());
+    }
+
+    @Test
+    public void pigeonholeAndDenseRunsDontSpill() {
+        Random random = new Random(25);
+        SpillCounter counter = new SpillCounter(directory.resolve("missing"), SpillCounter.MIN_BUDGET);
+        for (int n : new int[]{200, 2000}) {
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            PairCounterTest.fill(random, xs, ys, n, 0, DenseCounter.MAX_DELTA);
+            Assertions.assertTrue(counter.partitionsFor(0, n) > 1);
+            Assertions.assertEquals(new HashCounter().hasTriple(xs, ys, 0, n), counter.hasTriple(xs, ys, 0, n),
+                    "Size " + n);
+            Assertions.assertEquals(1, counter.getLastPartitions());
+            Assertions.assertEquals(0, counter.getLastFiles());
+        }
+    }
+
+    @Test
+    public void smallRunsStayInMemory() {
+        SpillCounter counter = new SpillCounter(directory.resolve("missing"), SpillCounter.MIN_BUDGET);
+        int[] xs = {0, 1, 2, 3, 4};
+        int[] ys = {0, 0, 0, 0, 0};
+        Assertions.assertTrue(counter.hasTriple(xs, ys, 0, 5));
+        Assertions.assertEquals(1, counter.getLastPartitions());
+        Assertions.assertEquals(8, counter.pairsExamined());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new SpillCounter(directory, 1000));
+    }
+
+    @Test
+    public void failuresLeaveNoFiles() throws IOException {
+        Random random = new Random(23);
+        int n = 1000;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        PairCounterTest.fill(random, xs, ys, n, 0, 1 << 29);
+
+        StopSignal stop = new StopSignal();
+        stop.stop();
+        SpillCounter counter = new SpillCounter(directory, SpillCounter.MIN_BUDGET);
+        Assertions.assertThrows(CancellationException.class, () -> counter.hasTriple(xs, ys, 0, n, stop));
+        Assertions.assertTrue(isEmpty(directory));
+        Assertions.assertEquals(0, counter.pairsExamined());
+
+        SpillCounter missing = new SpillCounter(directory.resolve("missing"), SpillCounter.MIN_BUDGET);
+        Assertions.assertThrows(UncheckedIOException.class, () -> missing.hasTriple(xs, ys, 0, n));
+        Assertions.assertTrue(isEmpty(directory));
+
+        Thread.currentThread().interrupt();
+        try {
+            UncheckedIOException e = Assertions.assertThrows(UncheckedIOException.class,
+                    () -> counter.hasTriple(xs, ys, 0, n));
+            Assertions.assertTrue(e.getCause() instanceof ClosedByInterruptException, e.getCause().toString());
+        } finally {
+            Thread.interrupted();
+        }
+        Assertions.assertTrue(isEmpty(directory));
+    }
+
+    @Test
+    public void problemSolvesSpilling() throws IOException {
+        Random random = new Random(24);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < 3; s++) {
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < 1200; i++) {
+                points.add(new Point(random.nextInt(s == 0 ? 1 << 20 : 1 << 11), random.nextInt(1 << 20)));
+            }
+            subProblems.add(points);
+        }
+        subProblems.add(List.of(new Point(0, 0), new Point(1, 1), new Point(2, 2), new Point(3, 3)));
+        Problem problem = new Problem(subProblems, ProblemLimits.unbounded());
+        Assertions.assertEquals(problem.solve(), problem.solveSpilling(directory, SpillCounter.MIN_BUDGET));
+        Assertions.assertTrue(isEmpty(directory));
+    }
+}
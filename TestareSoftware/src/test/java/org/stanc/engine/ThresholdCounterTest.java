@@ -0,0 +1,83 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+public class ThresholdCounterTest {
+
+    @Test
+    public void exactMaxMultiplicityMatchesTheReference() {
+        Random random = new Random(20);
+        ThresholdCounter dense = new ThresholdCounter(50);
+        ThresholdCounter wide = new ThresholdCounter(1L << 31);
+        int[] xs = new int[60];
+        int[] ys = new int[60];
+        for (int run = 0; run < 500; run++) {
+            int n = random.nextInt(61);
+            PairCounterTest.fill(random, xs, ys, n, 0, 50);
+            int expected = ReferenceSolver.maxMultiplicity(xs, ys, n);
+            for (ThresholdCounter counter : new ThresholdCounter[]{dense, wide}) {
+                ThresholdResult result = counter.count(xs, ys, 0, n, ThresholdQuery.exactMaxMultiplicity());
+                Assertions.assertEquals(expected, result.getMaxMultiplicity(), "Run " + run);
+                Assertions.assertFalse(result.isCapped());
+                Assertions.assertEquals(PairCounter.pairCount(0, n), result.getPairsExamined());
+            }
+        }
+    }
+
+    @Test
+    public void thresholdsStopAtTheLargest() {
+        Random random = new Random(21);
+        ThresholdCounter dense = new ThresholdCounter(50);
+        ThresholdCounter wide = new ThresholdCounter(1L << 31);
+        int[] xs = new int[40];
+        int[] ys = new int[40];
+        ThresholdQuery query = ThresholdQuery.of(5, 2, 3, 3);
+        for (int run = 0; run < 500; run++) {
+            int n = random.nextInt(41);
+            PairCounterTest.fill(random, xs, ys, n, 0, 50);
+            int max = ReferenceSolver.maxMultiplicity(xs, ys, n);
+            for (ThresholdCounter counter : new ThresholdCounter[]{dense, wide}) {
+                ThresholdResult result = counter.count(xs, ys, 0, n, query);
+                Assertions.assertEquals(Math.min(max, 5), result.getMaxMultiplicity(), "Run " + run);
+                Assertions.assertEquals(max >= 5, result.isCapped());
+                for (int k = 1; k <= 5; k++) {
+                    Assertions.assertEquals(max >= k, result.reaches(k));
+                }
+                Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), result.reaches(3));
+                Assertions.assertThrows(IllegalArgumentException.class, () -> result.reaches(6));
+            }
+        }
+    }
+
+    @Test
+    public void thresholdThreeCostsWhatHasTripleCosts() {
+        int[] xs = {0, 1, 2, 3, 4};
+        int[] ys = {0, 0, 0, 0, 0};
+        ThresholdResult result = new ThresholdCounter(50).count(xs, ys, 0, 5, ThresholdQuery.of(3));
+        DenseCounter dense = new DenseCounter(50);
+        Assertions.assertTrue(dense.hasTriple(xs, ys, 0, 5));
+        Assertions.assertEquals(dense.pairsExamined(), result.getPairsExamined());
+        Assertions.assertEquals(">=3", result.toString());
+        Assertions.assertEquals("4", new ThresholdCounter(50).count(xs, ys, 0, 5, ThresholdQuery.exactMaxMultiplicity())
+                .toString());
+    }
+
+    @Test
+    public void invalidQueriesAndStops() {
+        Assertions.assertThrows(IllegalArgumentException.class, ThresholdQuery::of);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ThresholdQuery.of(3, 0));
+        Assertions.assertArrayEquals(new int[]{2, 3, 5}, ThresholdQuery.of(5, 3, 2, 5).getThresholds());
+        Assertions.assertEquals(ThresholdQuery.of(3, 5), ThresholdQuery.of(5, 3));
+        Assertions.assertEquals(Integer.MAX_VALUE, ThresholdQuery.exactMaxMultiplicity().getCap());
+
+        StopSignal stop = new StopSignal();
+        stop.stop();
+        Assertions.assertThrows(CancellationException.class, () -> new ThresholdCounter(50)
+                .count(new int[]{0, 1, 2}, new int[]{0, 0, 0}, 0, 3, ThresholdQuery.of(3), stop));
+    }
+}
@@ -0,0 +1,77 @@
+package org.stanc.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import org.stanc.utils.ReferenceSolver;
+
+import java.util.Random;
+
+public class VectorPairCounterTest {
+
+    /**
+     * VectorPairCounter is only built by the java21 profile; skips the test when it is not on the class path.
+     */
+    private static PairCounter newVectorCounter(long maxDelta) throws Exception {
+        Class<?> type;
+        try {
+            type = Class.forName("org.stanc.engine.VectorPairCounter");
+        } catch (ClassNotFoundException | LinkageError e) {
+            type = null;
+        }
+        Assumptions.assumeTrue(type != null, "VectorPairCounter needs the Java 21 build");
+        return (PairCounter) type.getConstructor(long.class).newInstance(maxDelta);
+    }
+
+    @Test
+    public void vectorCounterMatchesReference() throws Exception {
+        Random random = new Random(31);
+        PairCounter dense = newVectorCounter(50);
+        PairCounter wide = newVectorCounter((1L << 32) - 1);
+        int[] xs = new int[200];
+        int[] ys = new int[200];
+        for (int run = 0; run < 2000; run++) {
+            int n = 1 + random.nextInt(run % 2 == 0 ? 40 : 200);
+            PairCounterTest.fill(random, xs, ys, n, 0, 50);
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), dense.hasTriple(xs, ys, 0, n), "Run " + run);
+            PairCounterTest.fill(random, xs, ys, n, -(1 << 29), 1 << 29);
+            Assertions.assertEquals(ReferenceSolver.hasTriple(xs, ys, n), wide.hasTriple(xs, ys, 0, n), "Run " + run);
+        }
+
+        int[] extremes = new int[16];
+        int[] zeros = new int[16];
+        for (int i = 0; i < extremes.length; i++) {
+            extremes[i] = i % 2 == 0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i;
+        }
+        Assertions.assertEquals(ReferenceSolver.hasTriple(extremes, zeros, 16), wide.hasTriple(extremes, zeros, 0, 16));
+    }
+
+    @Test
+    public void vectorCounterReportsTheSameWorkAsTheScalarOne() throws Exception {
+        Random random = new Random(32);
+        for (long maxDelta : new long[]{50, (1L << 32) - 1}) {
+            PairCounter vector = newVectorCounter(maxDelta);
+            PairCounter scalar = VectorCounters.newScalarCounter(maxDelta);
+            int[] xs = new int[60];
+            int[] ys = new int[60];
+            for (int run = 0; run < 200; run++) {
+                int n = 1 + random.nextInt(60);
+                PairCounterTest.fill(random, xs, ys, n, 0, 50);
+                int from = random.nextInt(n);
+                Assertions.assertEquals(scalar.hasTriple(xs, ys, from, n), vector.hasTriple(xs, ys, from, n));
+                Assertions.assertEquals(scalar.pairsExamined(), vector.pairsExamined());
+                Assertions.assertEquals(scalar.keysCounted(), vector.keysCounted());
+            }
+        }
+    }
+
+    @Test
+    public void factoryFallsBackToScalarCounters() {
+        int[] xs = {7, 7, 7};
+        int[] ys = {3, 3, 3};
+        Assertions.assertTrue(VectorCounters.newCounter(50).hasTriple(xs, ys, 0, 3));
+        Assertions.assertTrue(VectorCounters.newCounter(1L << 40).hasTriple(xs, ys, 0, 3));
+        Assertions.assertTrue(VectorCounters.newScalarCounter(50) instanceof DenseCounter);
+        Assertions.assertTrue(VectorCounters.newScalarCounter(256) instanceof HashCounter);
+    }
+}
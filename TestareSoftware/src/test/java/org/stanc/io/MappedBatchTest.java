@@ -0,0 +1,172 @@
+package org.stanc.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.StreamSolver;
+import org.stanc.utils.RandomSubProblems;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class MappedBatchTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void columnsRoundTrip() throws IOException {
+        Random random = new Random(9);
+        int[][] xs = new int[50][];
+        int[][] ys = new int[50][];
+        for (int s = 0; s < xs.length; s++) {
+            int n = random.nextInt(300);
+            xs[s] = new int[n];
+            ys[s] = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[s][i] = s % 3 == 0 ? random.nextInt() : random.nextInt(51);
+                ys[s][i] = i % 7 == 0 ? Integer.MIN_VALUE : i % 5 == 0 ? Integer.MAX_VALUE : random.nextInt(1000);
+            }
+        }
+
+        for (ColumnEncoding encoding : ColumnEncoding.values()) {
+            Path file = tempDir.resolve(encoding + ".bin");
+            try (BatchWriter writer = BatchWriter.create(file, encoding)) {
+                for (int s = 0; s < xs.length; s++) {
+                    writer.accept(s, xs[s], ys[s], xs[s].length);
+                }
+                writer.finish();
+            }
+            try (MappedBatch batch = MappedBatch.open(file)) {
+                Assertions.assertEquals(xs.length, batch.size());
+                Assertions.assertEquals(encoding, batch.getEncoding());
+                int[] x = new int[300];
+                int[] y = new int[300];
+                for (int s = xs.length - 1; s >= 0; s--) {
+                    Assertions.assertEquals(xs[s].length, batch.pointCount(s));
+                    int n = batch.load(s, x, y);
+                    Assertions.assertArrayEquals(xs[s], Arrays.copyOf(x, n), encoding + " x of " + s);
+                    Assertions.assertArrayEquals(ys[s], Arrays.copyOf(y, n), encoding + " y of " + s);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void convertedBatchSolvesLikeProblem() throws IOException {
+        List<List<Point>> subProblems = RandomSubProblems.of(new Random(10), 5);
+        List<String> expected = new Problem(subProblems).solve();
+        Path text = tempDir.resolve("batch.txt");
+        Files.write(text, ProblemReaderTest.format(subProblems).getBytes(StandardCharsets.US_ASCII));
+
+        for (ColumnEncoding encoding : ColumnEncoding.values()) {
+            Path binary = tempDir.resolve("batch-" + encoding + ".bin");
+            Assertions.assertEquals(5, BatchConverter.convert(text, binary, encoding, ProblemLimits.DEFAULT));
+
+            StreamSolver solver = new StreamSolver(ProblemLimits.DEFAULT);
+            List<String> results = new ArrayList<>();
+            try (MappedBatch batch = MappedBatch.open(binary)) {
+                solver.solve(batch, (index, result) -> results.add(result));
+                Assertions.assertEquals(expected, results);
+                Assertions.assertEquals(expected.get(3), solver.solveOne(batch, 3));
+            }
+        }
+    }
+
+    @Test
+    public void boundsAreValidatedOnRead() throws IOException {
+        Path file = tempDir.resolve("wide.bin");
+        try (BatchWriter writer = BatchWriter.create(file, ColumnEncoding.VARINT_DELTA)) {
+            writer.accept(0, new int[]{0, 1}, new int[]{0, 1}, 2);
+            writer.accept(1, new int[]{0, 60}, new int[]{0, 1}, 2);
+            writer.finish();
+        }
+        try (MappedBatch batch = MappedBatch.open(file)) {
+            Exception exception = Assertions.assertThrows(RuntimeException.class,
+                    () -> new StreamSolver(ProblemLimits.DEFAULT).solve(batch, (index, result) -> { }));
+            Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 1, 1), exception.getMessage());
+            Assertions.assertEquals("FALSE", new StreamSolver(ProblemLimits.DEFAULT).solveOne(batch, 0));
+        }
+    }
+
+    @Test
+    public void otherFilesAreRejected() throws IOException {
+        Path file = tempDir.resolve("text.bin");
+        Files.write(file, "1\n1\n0 0\n and some more text".getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertThrows(IOException.class, () -> MappedBatch.open(file));
+    }
+
+    @Test
+    public void corruptEncodingIsRejected() throws IOException {
+        Path file = tempDir.resolve("corrupt.bin");
+        try (BatchWriter writer = BatchWriter.create(file, ColumnEncoding.FIXED)) {
+            writer.accept(0, new int[]{0, 1}, new int[]{0, 1}, 2);
+            writer.finish();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(2).order(ByteOrder.LITTLE_ENDIAN).putShort(0, (short) 7),
+                    BatchFormat.ENCODING_OFFSET);
+        }
+        IOException exception = Assertions.assertThrows(IOException.class, () -> MappedBatch.open(file));
+        Assertions.assertEquals("Not a batch file: unknown column encoding 7", exception.getMessage());
+    }
+
+    @Test
+    public void corruptBlocksAreRejected() throws IOException {
+        for (ColumnEncoding encoding : ColumnEncoding.values()) {
+            Path file = tempDir.resolve(encoding + ".bin");
+            try (BatchWriter writer = BatchWriter.create(file, encoding)) {
+                writer.accept(0, new int[]{0, 1}, new int[]{0, 1}, 2);
+                writer.accept(1, new int[]{3, 4, 5}, new int[]{3, 40, 5}, 3);
+                writer.finish();
+            }
+            // subproblem 1 claims 4 points: a FIXED block is then too short, a VARINT_DELTA one runs out of values
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer offset = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(offset, BatchFormat.TABLE_OFFSET);
+                long entry = offset.getLong(0) + BatchFormat.ENTRY_SIZE + 8;
+                channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 4), entry);
+            }
+            try (MappedBatch batch = MappedBatch.open(file)) {
+                int[] xs = new int[4];
+                int[] ys = new int[4];
+                Assertions.assertEquals(2, batch.load(0, xs, ys));
+                IOException exception = Assertions.assertThrows(IOException.class, () -> batch.load(1, xs, ys));
+                Assertions.assertTrue(exception.getMessage().startsWith("Bad block for subproblem 1"),
+                        exception.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void failedConversionLeavesNoFile() throws IOException {
+        List<List<Point>> subProblems = RandomSubProblems.of(new Random(11), 4);
+        subProblems.set(2, List.of(new Point(0, 0), new Point(60, 0)));
+        Path text = tempDir.resolve("wide.txt");
+        Files.write(text, ProblemReaderTest.format(subProblems).getBytes(StandardCharsets.US_ASCII));
+        Path binary = tempDir.resolve("wide.bin");
+
+        Exception exception = Assertions.assertThrows(RuntimeException.class,
+                () -> BatchConverter.convert(text, binary, ColumnEncoding.VARINT_DELTA, ProblemLimits.DEFAULT));
+        Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 2, 1), exception.getMessage());
+        Assertions.assertFalse(Files.exists(binary));
+
+        try (BatchWriter writer = BatchWriter.create(binary, ColumnEncoding.FIXED)) {
+            writer.accept(0, new int[]{0, 1}, new int[]{0, 1}, 2);
+        }
+        Assertions.assertFalse(Files.exists(binary));
+    }
+}
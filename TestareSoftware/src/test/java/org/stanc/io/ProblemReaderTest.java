@@ -0,0 +1,132 @@
+package org.stanc.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.StreamSolver;
+import org.stanc.utils.RandomSubProblems;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+public class ProblemReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void streamedResultsMatchSolve() throws IOException {
+        List<List<Point>> subProblems = RandomSubProblems.of(new Random(7), 5);
+        String text = format(subProblems);
+        List<String> expected = new Problem(subProblems).solve();
+
+        for (int bufferSize : new int[]{1, 7, 4096}) {
+            ProblemReader reader = new ProblemReader(Channels.newChannel(
+                    new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII))), bufferSize);
+            Assertions.assertEquals(expected, solve(reader, ProblemLimits.DEFAULT), "Buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    public void gzipInputIsDetected() throws IOException {
+        List<List<Point>> subProblems = RandomSubProblems.of(new Random(8), 4);
+        List<String> expected = new Problem(subProblems).solve();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(format(subProblems).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        Assertions.assertEquals(expected, solve(ProblemReader.of(new ByteArrayInputStream(bytes.toByteArray())),
+                ProblemLimits.DEFAULT));
+
+        Path gzipFile = tempDir.resolve("input.txt.gz");
+        Files.write(gzipFile, bytes.toByteArray());
+        Assertions.assertEquals(expected, solve(ProblemReader.open(gzipFile), ProblemLimits.DEFAULT));
+
+        Path textFile = tempDir.resolve("input.txt");
+        Files.write(textFile, format(subProblems).getBytes(StandardCharsets.US_ASCII));
+        Assertions.assertEquals(expected, solve(ProblemReader.open(textFile), ProblemLimits.DEFAULT));
+    }
+
+    @Test
+    public void gzipFilesAreDecompressedOnce() throws IOException {
+        ByteArrayOutputStream inner = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(inner)) {
+            out.write("1\n1\n0 0\n".getBytes(StandardCharsets.US_ASCII));
+        }
+        ByteArrayOutputStream outer = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(outer)) {
+            out.write(inner.toByteArray());
+        }
+        // the decompressed file starts with the gzip magic bytes but is not text
+        Path file = tempDir.resolve("twice.txt.gz");
+        Files.write(file, outer.toByteArray());
+        Assertions.assertThrows(IOException.class, () -> solve(ProblemReader.open(file), ProblemLimits.DEFAULT));
+    }
+
+    @Test
+    public void boundsAreValidatedWithProblemMessages() {
+        Exception subProblems = Assertions.assertThrows(RuntimeException.class,
+                () -> solve(reader("6"), ProblemLimits.DEFAULT));
+        Assertions.assertEquals(Problem.INVALID_SUBPROBLEMS_BOUNDS, subProblems.getMessage());
+
+        Exception points = Assertions.assertThrows(RuntimeException.class,
+                () -> solve(reader("2\n1\n0 0\n41\n"), ProblemLimits.DEFAULT));
+        Assertions.assertEquals(String.format(Problem.INVALID_POINTS_BOUNDS, 1), points.getMessage());
+
+        Exception coordinates = Assertions.assertThrows(RuntimeException.class,
+                () -> solve(reader("1\n3\n0 0\n1 1\n51 0\n"), ProblemLimits.DEFAULT));
+        Assertions.assertEquals(String.format(Problem.INVALID_COORDINATES_BOUNDS, 0, 2), coordinates.getMessage());
+    }
+
+    @Test
+    public void malformedInputIsReported() {
+        Assertions.assertThrows(IOException.class, () -> solve(reader("1\n2\n0 0\n1"), ProblemLimits.DEFAULT));
+        Assertions.assertThrows(IOException.class, () -> solve(reader("1\n2\n0 0\n1 x"), ProblemLimits.DEFAULT));
+        Assertions.assertThrows(IOException.class, () -> solve(reader("1\n1\n0 2147483648"), ProblemLimits.unbounded()));
+        Assertions.assertThrows(IOException.class, () -> solve(reader("1\n1\n0 -"), ProblemLimits.unbounded()));
+    }
+
+    @Test
+    public void extremeCoordinatesAreParsed() throws IOException {
+        List<String> results = solve(reader("1\n3\n-2147483648 2147483647\n0 0\r\n\t2147483647 -2147483648"),
+                ProblemLimits.unbounded());
+        Assertions.assertEquals(List.of("FALSE"), results);
+    }
+
+    private static ProblemReader reader(String text) throws IOException {
+        return ProblemReader.of(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private static List<String> solve(ProblemReader reader, ProblemLimits limits) throws IOException {
+        List<String> results = new ArrayList<>();
+        try (reader) {
+            new StreamSolver(limits).solve(reader, (index, result) -> results.add(result));
+        }
+        return results;
+    }
+
+    static String format(List<List<Point>> subProblems) {
+        StringBuilder text = new StringBuilder().append(subProblems.size()).append('\n');
+        for (List<Point> points : subProblems) {
+            text.append(points.size()).append('\n');
+            for (Point p : points) {
+                text.append(p.getX()).append(' ').append(p.getY()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package org.stanc.io;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.SolveResults;
+import org.stanc.utils.RandomSubProblems;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class ResultFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void resultsRoundTrip() throws IOException {
+        Random random = new Random(62);
+        List<List<Point>> subProblems = RandomSubProblems.of(random, 20_000);
+        subProblems.set(17, null);
+        ProblemLimits limits = new ProblemLimits(1, 20_000, 1, 40, 0, 50);
+        SolveResults results = new Problem(subProblems, limits).solveEachResults();
+
+        Path file = tempDir.resolve("results.bin");
+        ResultFile.write(results, file);
+        Assertions.assertEquals(ResultFile.HEADER_SIZE + 2 * 313 * Long.BYTES, Files.size(file));
+
+        SolveResults read = ResultFile.read(file);
+        Assertions.assertEquals(results, read);
+        Assertions.assertEquals(results.countTrue(), read.countTrue());
+        Assertions.assertEquals(1, read.countErrors());
+        Assertions.assertFalse(read.isValid(17));
+    }
+
+    @Test
+    public void corruptFilesAreRejected() throws IOException {
+        Path file = tempDir.resolve("results.bin");
+        ResultFile.write(SolveResults.fromWords(0, new long[0], new long[0]), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        Assertions.assertThrows(IOException.class, () -> ResultFile.read(file));
+        Assertions.assertEquals(ResultFile.HEADER_SIZE, bytes.length);
+    }
+}
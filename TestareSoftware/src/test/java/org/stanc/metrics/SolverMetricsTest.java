@@ -0,0 +1,120 @@
+package org.stanc.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.utils.RandomSubProblems;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class SolverMetricsTest {
+
+    @Test
+    public void solvedSubProblemsAreCountedBySize() {
+        SolverMetrics metrics = new SolverMetrics();
+        Random random = new Random(21);
+        long trueAnswers = 0;
+        long falseAnswers = 0;
+        for (int run = 0; run < 100; run++) {
+            Problem problem = new Problem(RandomSubProblems.of(random, 5));
+            problem.setMetrics(metrics);
+            for (String result : run % 2 == 0 ? problem.solve() : problem.solveParallel(ForkJoinPool.commonPool())) {
+                if ("TRUE".equals(result)) {
+                    trueAnswers++;
+                } else {
+                    falseAnswers++;
+                }
+            }
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(500, snapshot.getSolved());
+        Assertions.assertEquals(trueAnswers, snapshot.getTrueAnswers());
+        Assertions.assertEquals(falseAnswers, snapshot.getFalseAnswers());
+        Assertions.assertEquals((double) trueAnswers / 500, snapshot.getTrueRatio());
+        Assertions.assertTrue(snapshot.getPairsExamined() > 0);
+        Assertions.assertTrue(snapshot.getPairsExamined() <= 500L * 40 * 39 / 2);
+        Assertions.assertTrue(snapshot.getValidationNanos() > 0);
+
+        long solvedInBuckets = 0;
+        for (int b = 0; b < snapshot.getBucketCount(); b++) {
+            solvedInBuckets += snapshot.getSolved(b);
+            Assertions.assertEquals(snapshot.getSolved(b), Arrays.stream(snapshot.getLatencyHistogram(b)).sum());
+            if (MetricsSnapshot.getBucketMinSize(b) > 40) {
+                Assertions.assertEquals(0, snapshot.getSolved(b));
+            }
+        }
+        Assertions.assertEquals(500, solvedInBuckets);
+    }
+
+    @Test
+    public void validationFailuresAreCountedByMessage() {
+        SolverMetrics metrics = new SolverMetrics();
+        List<List<List<Point>>> invalid = Arrays.asList(
+                Collections.emptyList(),
+                Collections.singletonList(Collections.nCopies(41, new Point(1, 1))),
+                Collections.singletonList(Arrays.asList(new Point(1, 1), new Point(51, 1))),
+                Collections.singletonList(Arrays.asList(new Point(-1, 1), new Point(1, 1))));
+        for (List<List<Point>> subProblems : invalid) {
+            Problem problem = new Problem(subProblems);
+            problem.setMetrics(metrics);
+            Assertions.assertThrows(RuntimeException.class, problem::solve);
+            Assertions.assertThrows(RuntimeException.class, () -> problem.solveTiled(ForkJoinPool.commonPool()));
+        }
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(2, snapshot.getValidationFailures(ValidationFailure.SUBPROBLEMS_BOUNDS));
+        Assertions.assertEquals(2, snapshot.getValidationFailures(ValidationFailure.POINTS_BOUNDS));
+        Assertions.assertEquals(4, snapshot.getValidationFailures(ValidationFailure.COORDINATES_BOUNDS));
+        Assertions.assertEquals(0, snapshot.getSolved());
+    }
+
+    @Test
+    public void latencyPercentilesAreBucketUpperBounds() {
+        SolverMetrics metrics = new SolverMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.recordSubProblem(10, false, 45, 100);
+        }
+        metrics.recordSubProblem(10, true, 3, 5000);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        int bucket = SolverMetrics.sizeBucket(10);
+        Assertions.assertEquals(8, MetricsSnapshot.getBucketMinSize(bucket));
+        Assertions.assertEquals(15, MetricsSnapshot.getBucketMaxSize(bucket));
+        Assertions.assertEquals(127, snapshot.getLatencyPercentileNanos(bucket, 0.5));
+        Assertions.assertEquals(127, snapshot.getLatencyPercentileNanos(bucket, 0.99));
+        Assertions.assertEquals(8191, snapshot.getLatencyPercentileNanos(bucket, 1));
+        Assertions.assertEquals(99 * 45 + 3, snapshot.getPairsExamined(bucket));
+
+        metrics.reset();
+        Assertions.assertEquals(0, metrics.snapshot().getSolved());
+    }
+
+    @Test
+    public void mBeanExposesTheSnapshot() throws Exception {
+        SolverMetrics metrics = new SolverMetrics();
+        ObjectName name = metrics.registerMBean("test");
+        try {
+            Problem problem = new Problem(RandomSubProblems.of(new Random(22), 3));
+            problem.setMetrics(metrics);
+            problem.solve();
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assertions.assertEquals(3L, server.getAttribute(name, "SubProblemsSolved"));
+            Assertions.assertEquals(metrics.snapshot().getPairsExamined(), server.getAttribute(name, "PairsExamined"));
+            Assertions.assertEquals(3L, Arrays.stream((long[]) server.getAttribute(name, "SolvedBySize")).sum());
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            Assertions.assertEquals(0L, server.getAttribute(name, "SubProblemsSolved"));
+        } finally {
+            SolverMetrics.unregisterMBean("test");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.stanc.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.utils.RandomSubProblems;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class BatchServerTest {
+
+    private static BatchServer startServer() throws IOException {
+        return BatchServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ProblemLimits.DEFAULT);
+    }
+
+    @Test
+    public void resultsMatchSolve() throws IOException {
+        try (BatchServer server = startServer();
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            Random random = new Random(11);
+            for (int i = 0; i < 10; i++) {
+                List<List<Point>> subProblems = RandomSubProblems.of(random, 1 + random.nextInt(5));
+                Assertions.assertEquals(new Problem(subProblems).solve(), client.solve(subProblems));
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+        try (BatchServer server = startServer();
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            Random random = new Random(12);
+            List<List<String>> expected = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                List<List<Point>> subProblems = RandomSubProblems.of(random, 1 + random.nextInt(5));
+                expected.add(new Problem(subProblems).solve());
+                client.send(subProblems);
+            }
+            client.flush();
+            for (List<String> results : expected) {
+                Assertions.assertEquals(results, client.receive());
+            }
+        }
+    }
+
+    @Test
+    public void invalidBatchesGetTheSolveMessageAndKeepTheConnection() throws IOException {
+        List<Point> tooMany = Collections.nCopies(41, new Point(1, 1));
+        List<Point> outOfRange = Arrays.asList(new Point(1, 1), new Point(2, 51));
+        List<Point> valid = Arrays.asList(new Point(1, 1), new Point(2, 2));
+
+        try (BatchServer server = startServer();
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            for (List<List<Point>> invalid : Arrays.asList(Collections.<List<Point>>emptyList(),
+                    Arrays.asList(valid, tooMany), Collections.singletonList(outOfRange))) {
+                String expected = Assertions.assertThrows(RuntimeException.class,
+                        () -> new Problem(invalid).solve()).getMessage();
+                RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> client.solve(invalid));
+                Assertions.assertEquals(expected, e.getMessage());
+            }
+
+            Assertions.assertEquals(Collections.singletonList("FALSE"),
+                    client.solve(Collections.singletonList(valid)));
+        }
+    }
+
+    @Test
+    public void nullSubProblemsAreRejectedByTheClient() throws IOException {
+        try (BatchServer server = startServer();
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> client.send(Collections.singletonList(null)));
+        }
+    }
+
+    @Test
+    public void immutableBatchesAreSent() throws IOException {
+        try (BatchServer server = startServer();
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            List<List<Point>> subProblems = List.of(List.of(new Point(0, 0), new Point(1, 1), new Point(2, 2),
+                    new Point(3, 3)), List.of(new Point(1, 1)));
+            Assertions.assertEquals(List.of("TRUE", "FALSE"), client.solve(subProblems));
+        }
+    }
+
+    @Test
+    public void connectionsShareTheSolverThreads() throws IOException {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        try (BatchServer server = startServer()) {
+            List<BatchClient> clients = new ArrayList<>();
+            try {
+                Random random = new Random(16);
+                for (int i = 0; i < 4 * cpus + 8; i++) {
+                    BatchClient client = BatchClient.connect(server.getLocalAddress());
+                    clients.add(client);
+                    client.send(RandomSubProblems.of(random, 1 + random.nextInt(5)));
+                    client.flush();
+                }
+                for (BatchClient client : clients) {
+                    client.receive();
+                }
+                // the connections stay open and idle, their solves ran on the pool
+                Assertions.assertTrue(server.getSolverThreads() >= 1 && server.getSolverThreads() <= cpus,
+                        "Solver threads " + server.getSolverThreads());
+            } finally {
+                for (BatchClient client : clients) {
+                    client.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisabledIfSystemProperty(named = "stanc.java21Classes", matches = "true")
+    public void java11ClassesRejectUnixDomainSockets() {
+        Assertions.assertEquals("platform threads", ConnectionExecutors.describe());
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> SocketAddresses.parse(SocketAddresses.UNIX_PREFIX + "/tmp/batch.sock"));
+    }
+
+    /**
+     * Run by the java21 profile only, with META-INF/versions/21 ahead of the Java 11 classes as in the multi-release
+     * jar, see the test-java21-classes execution of the pom.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "stanc.java21Classes", matches = "true")
+    public void java21ClassesServeUnixDomainSocketsOnVirtualThreads(@TempDir Path directory) throws IOException {
+        Assertions.assertEquals("virtual threads", ConnectionExecutors.describe());
+        SocketAddress address = SocketAddresses.parse(SocketAddresses.UNIX_PREFIX + directory.resolve("batch.sock"));
+        try (BatchServer server = BatchServer.start(address, ProblemLimits.DEFAULT);
+             BatchClient client = BatchClient.connect(server.getLocalAddress())) {
+            Random random = new Random(15);
+            for (int i = 0; i < 10; i++) {
+                List<List<Point>> subProblems = RandomSubProblems.of(random, 1 + random.nextInt(5));
+                Assertions.assertEquals(new Problem(subProblems).solve(), client.solve(subProblems));
+            }
+        }
+    }
+}
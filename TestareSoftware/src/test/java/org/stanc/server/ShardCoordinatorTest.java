@@ -0,0 +1,94 @@
+package org.stanc.server;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemBatch;
+import org.stanc.ProblemLimits;
+import org.stanc.engine.HashCounter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class ShardCoordinatorTest {
+
+    private static void fill(Random random, int[] xs, int[] ys, int range) {
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(range);
+            ys[i] = random.nextInt(range);
+        }
+    }
+
+    @Test
+    public void workersMatchHashing() throws IOException {
+        Random random = new Random(23);
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(3)) {
+            Assertions.assertEquals(3, coordinator.getWorkers());
+            int[] xs = new int[1500];
+            int[] ys = new int[1500];
+            for (int range : new int[]{1 << 24, 1 << 11, 1 << 24, 1 << 10, 300}) {
+                fill(random, xs, ys, range);
+                HashCounter hash = new HashCounter();
+                boolean expected = hash.hasTriple(xs, ys, 0, xs.length);
+                long keys = coordinator.keysCounted();
+                long pairs = coordinator.pairsExamined();
+                Assertions.assertEquals(expected, coordinator.hasTriple(xs, ys, 0, xs.length), "Range " + range);
+                if (!expected) {
+                    // the shards never count the same key, so their sums are exact
+                    Assertions.assertEquals(hash.keysCounted(), coordinator.keysCounted() - keys);
+                    Assertions.assertEquals(hash.pairsExamined(), coordinator.pairsExamined() - pairs);
+                    Assertions.assertTrue(coordinator.getLastMaxMultiplicity() <= 2);
+                } else {
+                    Assertions.assertTrue(coordinator.getLastMaxMultiplicity() >= 3 || range == 300);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void batchesMatchSolve() throws IOException {
+        Random random = new Random(24);
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < 6; s++) {
+            List<Point> points = new ArrayList<>();
+            int n = 1 + random.nextInt(800);
+            int range = s % 2 == 0 ? 1 << 20 : 1 << 9;
+            for (int i = 0; i < n; i++) {
+                points.add(new Point(random.nextInt(range), random.nextInt(range)));
+            }
+            subProblems.add(points);
+        }
+        ProblemBatch batch = ProblemBatch.of(subProblems, ProblemLimits.unbounded());
+        try (ShardCoordinator coordinator = ShardCoordinator.launch(2)) {
+            Assertions.assertEquals(Problem.of(batch).solve(), coordinator.solve(batch));
+        }
+    }
+
+    @Test
+    public void aDeadWorkerFailsTheRun() throws IOException {
+        int[] xs = new int[500];
+        int[] ys = new int[500];
+        fill(new Random(25), xs, ys, 1 << 24);
+        ShardCoordinator coordinator = ShardCoordinator.launch(2);
+        try {
+            Assertions.assertFalse(coordinator.hasTriple(xs, ys, 0, xs.length));
+            coordinator.processes().get(1).destroyForcibly();
+            UncheckedIOException e = Assertions.assertThrows(UncheckedIOException.class, () -> {
+                for (int run = 0; run < 100; run++) {
+                    coordinator.hasTriple(xs, ys, 0, xs.length);
+                }
+            });
+            // the failure of the dead worker, not the one of the STOP sent to it afterwards
+            Assertions.assertTrue(Arrays.stream(e.getCause().getStackTrace())
+                    .noneMatch(frame -> frame.getMethodName().equals("broadcastStop")), e.getCause().toString());
+        } finally {
+            coordinator.close();
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ShardCoordinator.launch(0));
+    }
+}
@@ -0,0 +1,129 @@
+package org.stanc.utils;
+
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ResultCache;
+import org.stanc.engine.DenseCounter;
+import org.stanc.engine.Engine;
+import org.stanc.engine.HashCounter;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.PlanningCounter;
+import org.stanc.engine.RadixSortCounter;
+import org.stanc.engine.SketchCounter;
+import org.stanc.engine.SpillCounter;
+import org.stanc.engine.ThresholdCounter;
+import org.stanc.engine.ThresholdQuery;
+import org.stanc.engine.TiledPairCounter;
+import org.stanc.engine.VectorCounters;
+import org.stanc.server.ShardCoordinator;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks the answers of Problem.solve and of every engine against ReferenceSolver, subproblem by subproblem:
+ * the scalar counters, SPILL (in the default temporary directory), TILED (on the common pool), VECTOR when the Java 21
+ * classes run with jdk.incubator.vector, THRESHOLD, Problem.solve through a ResultCache (a first pass filling it, a
+ * second one answered from it) and SHARDS when a ShardCoordinator is given.
+ * An instance keeps one counter per engine, so it is not thread safe.
+ */
+public final class EngineCheck {
+
+    private static final ThresholdQuery TRIPLE = ThresholdQuery.of(3);
+
+    private final int maxCoordinate;
+    private final Map<String, PairCounter> engines = new LinkedHashMap<>();
+    private final ThresholdCounter thresholdCounter;
+
+    /**
+     * @param maxCoordinate the biggest coordinate of the batches to check, DENSE is skipped beyond its MAX_DELTA
+     */
+    public EngineCheck(int maxCoordinate) {
+        this(maxCoordinate, null);
+    }
+
+    /**
+     * @param shards a coordinator to check too, null to skip it; it starts worker JVMs, so the caller launches and
+     *               closes it
+     */
+    public EngineCheck(int maxCoordinate, ShardCoordinator shards) {
+        this.maxCoordinate = maxCoordinate;
+        if (maxCoordinate <= DenseCounter.MAX_DELTA) {
+            engines.put("DENSE", new DenseCounter(maxCoordinate));
+        }
+        engines.put("HASH", new HashCounter());
+        engines.put("RADIX", new RadixSortCounter());
+        engines.put("PLANNING", new PlanningCounter(maxCoordinate));
+        engines.put("PLANNING_RADIX", new PlanningCounter(maxCoordinate, Engine.RADIX));
+        engines.put("SKETCH", new SketchCounter(SketchCounter.MIN_BUDGET));
+        engines.put("SPILL", new SpillCounter(null, SpillCounter.MIN_BUDGET));
+        engines.put("TILED", new TiledPairCounter(ForkJoinPool.commonPool(), maxCoordinate));
+        if (VectorCounters.isAvailable()) {
+            engines.put("VECTOR", VectorCounters.newCounter(maxCoordinate));
+        }
+        if (shards != null) {
+            engines.put("SHARDS", shards);
+        }
+        thresholdCounter = new ThresholdCounter(maxCoordinate);
+    }
+
+    /**
+     * Returns one line per disagreement between the reference and answers (the output of Problem.solve on batch) or
+     * one of the engines, none when they all agree.
+     */
+    public List<String> mismatches(List<List<Point>> batch, List<String> answers) {
+        List<String> mismatches = new ArrayList<>();
+        if (answers.size() != batch.size()) {
+            mismatches.add("Expected " + batch.size() + " answers, got " + answers.size());
+            return mismatches;
+        }
+        Problem cached = cachedProblem(batch);
+        List<String> filled = cached.solve();
+        List<String> hits = cached.solve();
+        for (int s = 0; s < batch.size(); s++) {
+            List<Point> points = batch.get(s);
+            int n = points.size();
+            int[] xs = new int[n];
+            int[] ys = new int[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = points.get(i).getX();
+                ys[i] = points.get(i).getY();
+            }
+            boolean expected = ReferenceSolver.hasTriple(xs, ys, n);
+            check(mismatches, s, "solve", expected, "TRUE".equals(answers.get(s)));
+            check(mismatches, s, "CACHE_MISS", expected, "TRUE".equals(filled.get(s)));
+            check(mismatches, s, "CACHE_HIT", expected, "TRUE".equals(hits.get(s)));
+            for (Map.Entry<String, PairCounter> engine : engines.entrySet()) {
+                check(mismatches, s, engine.getKey(), expected, engine.getValue().hasTriple(xs, ys, 0, n));
+            }
+            check(mismatches, s, "THRESHOLD", expected, thresholdCounter.count(xs, ys, 0, n, TRIPLE).reaches(3));
+        }
+        return mismatches;
+    }
+
+    /**
+     * The problem of batch, with a fresh cache large enough for every subproblem of it.
+     */
+    private Problem cachedProblem(List<List<Point>> batch) {
+        int maxPoints = 1;
+        long totalPoints = 0;
+        for (List<Point> points : batch) {
+            maxPoints = Math.max(maxPoints, points.size());
+            totalPoints += points.size();
+        }
+        Problem problem = new Problem(batch, WorkloadGenerator.limitsFor(batch.size(), maxPoints, maxCoordinate));
+        problem.setResultCache(new ResultCache(Math.max(1, totalPoints), 0));
+        return problem;
+    }
+
+    private static void check(List<String> mismatches, int subProblem, String engine, boolean expected,
+                              boolean actual) {
+        if (expected != actual) {
+            mismatches.add("Subproblem " + subProblem + ": " + engine + " answered " + actual + ", the reference "
+                    + expected);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.stanc.utils;
+
+import org.stanc.Point;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random subproblems within ProblemLimits.DEFAULT, for the tests comparing a solve path against Problem.solve():
+ * 1 to 40 points each, coordinates in [0, 50]. Larger or shaped inputs come from WorkloadGenerator.
+ */
+public final class RandomSubProblems {
+
+    private RandomSubProblems() {
+    }
+
+    /**
+     * count subproblems; the returned lists are mutable, so a test can replace some of them with invalid ones.
+     */
+    public static List<List<Point>> of(Random random, int count) {
+        List<List<Point>> subProblems = new ArrayList<>();
+        for (int s = 0; s < count; s++) {
+            int n = 1 + random.nextInt(40);
+            List<Point> points = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                points.add(new Point(random.nextInt(51), random.nextInt(51)));
+            }
+            subProblems.add(points);
+        }
+        return subProblems;
+    }
+}
@@ -0,0 +1,42 @@
+package org.stanc.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The original solveOne algorithm, kept as an oracle for the optimized engines: counts every (|dx|, |dy|) key of the
+ * first n points in a HashMap and answers true when one of them reaches 3 pairs.
+ */
+public final class ReferenceSolver {
+
+    private ReferenceSolver() {
+    }
+
+    public static boolean hasTriple(int[] xs, int[] ys, int n) {
+        Map<Long, Integer> counter = new HashMap<>();
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long key = Math.abs((long) xs[i] - xs[j]) << 32 | Math.abs((long) ys[i] - ys[j]);
+                if (counter.merge(key, 1, Integer::sum) == 3) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The largest number of pairs of the first n points sharing a (|dx|, |dy|) key, 0 with less than 2 points.
+     */
+    public static int maxMultiplicity(int[] xs, int[] ys, int n) {
+        Map<Long, Integer> counter = new HashMap<>();
+        int max = 0;
+        for (int i = 0; i < n - 1; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long key = Math.abs((long) xs[i] - xs[j]) << 32 | Math.abs((long) ys[i] - ys[j]);
+                max = Math.max(max, counter.merge(key, 1, Integer::sum));
+            }
+        }
+        return max;
+    }
+}
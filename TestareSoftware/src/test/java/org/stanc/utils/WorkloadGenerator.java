@@ -0,0 +1,175 @@
+package org.stanc.utils;
+
+import org.stanc.Point;
+import org.stanc.ProblemLimits;
+import org.stanc.engine.HashCounter;
+import org.stanc.engine.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded random batches of subproblems, for capacity and load testing where the fixed instances of TestDataProvider
+ * are too few and too small: the same distribution, seed and sizes always give the same batches.
+ */
+public final class WorkloadGenerator {
+
+    /**
+     * The point distributions, all within [0, maxCoordinate]:
+     * - UNIFORM: independent uniform coordinates
+     * - CLUSTERED: about sqrt(N) / 2 uniform centers, with normally distributed points around each of them
+     * - LATTICE: an evenly spaced square grid covering the range, from a random origin
+     * - DUPLICATE_HEAVY: points drawn from a pool of N / 10 uniform points, so most of them repeat
+     * - ADVERSARIAL_FALSE: no key reaches 3 pairs, so every engine enumerates every pair; built greedily, see
+     * falsePoints(), so a range too small for N FALSE points is rejected
+     */
+    public enum Distribution {
+        UNIFORM,
+        CLUSTERED,
+        LATTICE,
+        DUPLICATE_HEAVY,
+        ADVERSARIAL_FALSE
+    }
+
+    private static final int MAX_REJECTIONS = 10_000;
+
+    private final Distribution distribution;
+    private final Random random;
+
+    public WorkloadGenerator(Distribution distribution, long seed) {
+        this.distribution = distribution;
+        this.random = new Random(seed);
+    }
+
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * The next batch of t subproblems of n points each, coordinates in [0, maxCoordinate].
+     */
+    public List<List<Point>> batch(int t, int n, int maxCoordinate) {
+        if (t < 1 || n < 1 || maxCoordinate < 0) {
+            throw new IllegalArgumentException("Expected t >= 1, n >= 1 and maxCoordinate >= 0, got " + t + ", " + n
+                    + ", " + maxCoordinate);
+        }
+        List<List<Point>> subProblems = new ArrayList<>(t);
+        for (int i = 0; i < t; i++) {
+            subProblems.add(points(n, maxCoordinate));
+        }
+        return subProblems;
+    }
+
+    /**
+     * The limits accepting the batches of t subproblems of n points in [0, maxCoordinate], DEFAULT when they fit.
+     */
+    public static ProblemLimits limitsFor(int t, int n, int maxCoordinate) {
+        ProblemLimits defaults = ProblemLimits.DEFAULT;
+        if (t <= defaults.getMaxSubProblems() && n <= defaults.getMaxPoints()
+                && maxCoordinate <= defaults.getMaxCoordinate()) {
+            return defaults;
+        }
+        return new ProblemLimits(1, Math.max(t, defaults.getMaxSubProblems()), 1, Math.max(n, defaults.getMaxPoints()),
+                0, Math.max(maxCoordinate, defaults.getMaxCoordinate()));
+    }
+
+    private List<Point> points(int n, int maxCoordinate) {
+        switch (distribution) {
+            case UNIFORM:
+                return uniform(n, maxCoordinate);
+            case CLUSTERED:
+                return clustered(n, maxCoordinate);
+            case LATTICE:
+                return lattice(n, maxCoordinate);
+            case DUPLICATE_HEAVY:
+                List<Point> pool = uniform(Math.max(1, n / 10), maxCoordinate);
+                List<Point> points = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    points.add(pool.get(random.nextInt(pool.size())));
+                }
+                return points;
+            case ADVERSARIAL_FALSE:
+                return falsePoints(n, maxCoordinate, random);
+            default:
+                throw new IllegalStateException(distribution.name());
+        }
+    }
+
+    private List<Point> uniform(int n, int maxCoordinate) {
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            points.add(new Point(random.nextInt(maxCoordinate + 1), random.nextInt(maxCoordinate + 1)));
+        }
+        return points;
+    }
+
+    private List<Point> clustered(int n, int maxCoordinate) {
+        List<Point> centers = uniform(Math.max(1, (int) Math.sqrt(n) / 2), maxCoordinate);
+        double spread = Math.max(1.0, maxCoordinate / (4.0 * centers.size()));
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Point center = centers.get(random.nextInt(centers.size()));
+            points.add(new Point(around(center.getX(), spread, maxCoordinate),
+                    around(center.getY(), spread, maxCoordinate)));
+        }
+        return points;
+    }
+
+    private int around(int center, double spread, int maxCoordinate) {
+        long value = Math.round(center + random.nextGaussian() * spread);
+        return (int) Math.max(0, Math.min(maxCoordinate, value));
+    }
+
+    private List<Point> lattice(int n, int maxCoordinate) {
+        int side = (int) Math.ceil(Math.sqrt(n));
+        int step = Math.max(1, maxCoordinate / side);
+        int slack = maxCoordinate - (side - 1) * step;
+        int originX = slack > 0 ? random.nextInt(slack + 1) : 0;
+        int originY = slack > 0 ? random.nextInt(slack + 1) : 0;
+        List<Point> points = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            // a grid wider than the range wraps around, repeating points
+            points.add(new Point((int) ((originX + (long) (i % side) * step) % (maxCoordinate + 1)),
+                    (int) ((originY + (long) (i / side) * step) % (maxCoordinate + 1))));
+        }
+        return points;
+    }
+
+    /**
+     * n points in [0, maxCoordinate] without a key reaching 3 pairs: uniform candidates are kept when they complete no
+     * triple. Throws IllegalArgumentException after MAX_REJECTIONS candidates in a row are rejected, the range is
+     * then too small for n such points.
+     */
+    public static List<Point> falsePoints(int n, int maxCoordinate, Random random) {
+        List<Point> points = new ArrayList<>(n);
+        LongIntHashMap counts = new LongIntHashMap();
+        LongIntHashMap added = new LongIntHashMap();
+        int rejections = 0;
+        while (points.size() < n) {
+            Point candidate = new Point(random.nextInt(maxCoordinate + 1), random.nextInt(maxCoordinate + 1));
+            if (accept(points, candidate, counts, added)) {
+                points.add(candidate);
+                rejections = 0;
+            } else if (++rejections == MAX_REJECTIONS) {
+                throw new IllegalArgumentException("Could not place " + n + " points in [0, " + maxCoordinate
+                        + "] without a triple, got " + points.size());
+            }
+        }
+        return points;
+    }
+
+    private static boolean accept(List<Point> points, Point candidate, LongIntHashMap counts, LongIntHashMap added) {
+        added.clear();
+        for (Point p : points) {
+            long key = HashCounter.key(p.getX(), p.getY(), candidate.getX(), candidate.getY());
+            if (counts.get(key) + added.addTo(key, 1) >= 3) {
+                return false;
+            }
+        }
+        for (Point p : points) {
+            counts.addTo(HashCounter.key(p.getX(), p.getY(), candidate.getX(), candidate.getY()), 1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,74 @@
+package org.stanc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stanc.engine.HashCounter;
+import org.stanc.engine.PairCounter;
+import org.stanc.engine.RadixSortCounter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of one large subproblem counted by the HASH and RADIX wide engines, in two shapes:
+ * - FIRST_TRIPLE: n points, from 10k to 1M, spread over [0, 64 * sqrt(n)), too wide for DenseCounter: the first
+ * triple then shows up after a number of pairs growing like n^(2/3) (a few 10^5 at 10k, a few 10^6 at 1M), so every
+ * run counts millions of distinct keys and stays within a default heap; HASH stops earlier there
+ * - ALL_FALSE: 6 * sqrt(n) points (600 to 6000) spread over [0, 2^30), where no key repeats: the answer is FALSE
+ * after every pair, and every pair is a distinct key (18M at n = 1M), so the hash table no longer fits in cache
+ * HASH measured faster on both: about 2, 9 and 59 ms against 5, 18 and 85 ms for RADIX on FIRST_TRIPLE, and 1199 ms
+ * against 2210 ms on ALL_FALSE at n = 1M, so RADIX stays an experimental, opt-in engine.
+ * Run with "-prof gc" to compare the allocation too.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+
+    @Param({"FIRST_TRIPLE", "ALL_FALSE"})
+    public String shape;
+
+    @Param({"10000", "100000", "1000000"})
+    public int n;
+
+    @Param({"HASH", "RADIX"})
+    public String engine;
+
+    private int[] xs;
+    private int[] ys;
+    private int points;
+    private PairCounter counter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        boolean allFalse = "ALL_FALSE".equals(shape);
+        points = allFalse ? (int) (6 * Math.sqrt(n)) : n;
+        int range = allFalse ? 1 << 30 : (int) (64 * Math.sqrt(n));
+        xs = new int[points];
+        ys = new int[points];
+        for (int i = 0; i < points; i++) {
+            xs[i] = random.nextInt(range);
+            ys[i] = random.nextInt(range);
+        }
+        counter = "RADIX".equals(engine) ? new RadixSortCounter() : new HashCounter();
+    }
+
+    @Benchmark
+    public boolean count() {
+        return counter.hasTriple(xs, ys, 0, points);
+    }
+}
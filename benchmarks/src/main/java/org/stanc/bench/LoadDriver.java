@@ -0,0 +1,150 @@
+package org.stanc.bench;
+
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+import org.stanc.server.ShardCoordinator;
+import org.stanc.utils.EngineCheck;
+import org.stanc.utils.WorkloadGenerator;
+import org.stanc.utils.WorkloadGenerator.Distribution;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays seeded batches (see WorkloadGenerator) against Problem.solve at a target rate, then reports the throughput
+ * and the latency percentiles. Unlike the JMH benchmarks, the load is open: batch k is due at start + k / rate, and
+ * its latency is counted from then, so a stall shows up in every batch it delays instead of only the one it hits.
+ * The service time (the solve call alone) is reported next to it.
+ * Every distinct batch is checked once, after the timed run so the checks don't compete with it for the CPU, against
+ * ReferenceSolver for the answers solve gave during the run (a batch the run didn't reach is solved then) and for
+ * every engine, see EngineCheck, a ShardCoordinator of --shards workers included when that is positive, launched
+ * before the warmup; the exit status is 1 when one of them disagrees.
+ * <p>
+ * Run with: java -cp target/benchmarks.jar org.stanc.bench.LoadDriver [--option value]..., options (defaults):
+ * --distribution (UNIFORM), --seed (42), --t (5), --n (40), --max-coordinate (50), --distinct (64),
+ * --batches (100000), --warmup (10000), --rate in batches per second, 0 for as fast as possible (0),
+ * --verify (true), --shards (0)
+ */
+public final class LoadDriver {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private LoadDriver() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        Distribution distribution = Distribution.valueOf(options.getOrDefault("distribution", "UNIFORM"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int t = Integer.parseInt(options.getOrDefault("t", "5"));
+        int n = Integer.parseInt(options.getOrDefault("n", "40"));
+        int maxCoordinate = Integer.parseInt(options.getOrDefault("max-coordinate", "50"));
+        int distinct = Integer.parseInt(options.getOrDefault("distinct", "64"));
+        int batches = Integer.parseInt(options.getOrDefault("batches", "100000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10000"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        boolean verify = Boolean.parseBoolean(options.getOrDefault("verify", "true"));
+        int shards = Integer.parseInt(options.getOrDefault("shards", "0"));
+        if (distinct < 1 || batches < 1 || warmup < 0 || rate < 0 || shards < 0) {
+            throw new IllegalArgumentException("Expected distinct >= 1, batches >= 1, warmup >= 0, rate >= 0 and "
+                    + "shards >= 0");
+        }
+
+        WorkloadGenerator generator = new WorkloadGenerator(distribution, seed);
+        ProblemLimits limits = WorkloadGenerator.limitsFor(t, n, maxCoordinate);
+        List<List<List<Point>>> inputs = new ArrayList<>(distinct);
+        List<Problem> problems = new ArrayList<>(distinct);
+        for (int i = 0; i < distinct; i++) {
+            List<List<Point>> batch = generator.batch(t, n, maxCoordinate);
+            inputs.add(batch);
+            problems.add(new Problem(batch, limits));
+        }
+
+        ShardCoordinator coordinator = verify && shards > 0 ? ShardCoordinator.launch(shards) : null;
+        for (int i = 0; i < warmup; i++) {
+            problems.get(i % distinct).solve();
+        }
+
+        List<List<String>> answers = new ArrayList<>(Collections.nCopies(distinct, null));
+
+        long interval = rate == 0 ? 0 : (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long[] latencies = new long[batches];
+        long[] serviceTimes = new long[batches];
+        long start = System.nanoTime();
+        for (int k = 0; k < batches; k++) {
+            long due = start + k * interval;
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            long begin = interval == 0 ? now : due;
+            List<String> batchAnswers = problems.get(k % distinct).solve();
+            long end = System.nanoTime();
+            latencies[k] = end - begin;
+            serviceTimes[k] = end - now;
+            if (k < distinct) {
+                answers.set(k, batchAnswers);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int mismatches = 0;
+        if (verify) {
+            EngineCheck check = new EngineCheck(maxCoordinate, coordinator);
+            for (int i = 0; i < distinct; i++) {
+                List<String> batchAnswers = answers.get(i) != null ? answers.get(i) : problems.get(i).solve();
+                for (String mismatch : check.mismatches(inputs.get(i), batchAnswers)) {
+                    System.err.println("Batch " + i + ": " + mismatch);
+                    mismatches++;
+                }
+            }
+        }
+        if (coordinator != null) {
+            coordinator.close();
+        }
+
+        System.out.printf("%s, seed %d: %d batches of T=%d, N=%d, coordinates in [0, %d], %d distinct%n",
+                distribution, seed, batches, t, n, maxCoordinate, distinct);
+        System.out.printf("throughput: %.1f batches/s, %.1f subproblems/s (target %s)%n", batches / seconds,
+                (double) batches * t / seconds, rate == 0 ? "none" : rate + " batches/s");
+        System.out.println("latency (us): " + percentiles(latencies));
+        System.out.println("service (us): " + percentiles(serviceTimes));
+        if (verify) {
+            System.out.printf("verified: %d batches, %d mismatches%n", distinct, mismatches);
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 == args.length) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + Arrays.toString(args));
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static String percentiles(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        StringBuilder builder = new StringBuilder();
+        for (double percentile : PERCENTILES) {
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1);
+            builder.append(String.format("p%s %.1f, ", percentile % 1 == 0 ? String.valueOf((int) percentile)
+                    : String.valueOf(percentile), sorted[Math.max(0, index)] / 1e3));
+        }
+        return builder.append(String.format("max %.1f", sorted[sorted.length - 1] / 1e3)).toString();
+    }
+}
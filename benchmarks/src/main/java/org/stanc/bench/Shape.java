@@ -0,0 +1,60 @@
+package org.stanc.bench;
+
+import org.stanc.Point;
+import org.stanc.utils.WorkloadGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The input shapes the benchmarks are run on:
+ * - EARLY_TRUE: the first 4 points are equal, so the answer is found after 3 pairs
+ * - WORST_FALSE: no key reaches 3 pairs, so every pair is enumerated; built by WorkloadGenerator.falsePoints, doubling
+ * the coordinate range from [0, 50] until it takes the n points
+ * - DUPLICATE_HEAVY: points drawn from a 3 x 3 corner of the grid
+ * - SPREAD_GRID: points on an evenly spaced lattice covering the whole coordinate range
+ */
+public enum Shape {
+
+    EARLY_TRUE,
+    WORST_FALSE,
+    DUPLICATE_HEAVY,
+    SPREAD_GRID;
+
+    private static final int MAX_COORDINATE = 50;
+
+    public List<Point> points(int n, Random random) {
+        List<Point> points = new ArrayList<>(n);
+        switch (this) {
+            case EARLY_TRUE:
+                for (int i = 0; i < n; i++) {
+                    points.add(i < 4 ? new Point(7, 7)
+                            : new Point(random.nextInt(MAX_COORDINATE + 1), random.nextInt(MAX_COORDINATE + 1)));
+                }
+                return points;
+            case WORST_FALSE:
+                for (int range = MAX_COORDINATE; ; range *= 2) {
+                    try {
+                        return WorkloadGenerator.falsePoints(n, range, random);
+                    } catch (IllegalArgumentException e) {
+                        // too many points for the range, try a wider one
+                    }
+                }
+            case DUPLICATE_HEAVY:
+                for (int i = 0; i < n; i++) {
+                    points.add(new Point(random.nextInt(3), random.nextInt(3)));
+                }
+                return points;
+            case SPREAD_GRID:
+                int side = (int) Math.ceil(Math.sqrt(n));
+                int step = Math.max(1, MAX_COORDINATE / side);
+                for (int i = 0; i < n; i++) {
+                    points.add(new Point((i % side) * step, (i / side) * step));
+                }
+                return points;
+            default:
+                throw new IllegalStateException(name());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.stanc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stanc.Point;
+import org.stanc.Problem;
+import org.stanc.ProblemLimits;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of Problem.solve over the input shapes, the number of points N and the number of subproblems T.
+ * Inputs beyond the default limits (N > 40 or T > 5 or wider coordinates) are solved with matching ProblemLimits.
+ * WORST_FALSE subproblems take seconds each to build at large N, so the T subproblems of that shape are one
+ * subproblem repeated: the setup of the N=1000, T=1000 cell builds one instead of a thousand.
+ * Run with "-prof gc" to get the allocation rate per operation next to ops/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+
+    @Param({"EARLY_TRUE", "WORST_FALSE", "DUPLICATE_HEAVY", "SPREAD_GRID"})
+    public Shape shape;
+
+    @Param({"1", "10", "40", "200", "1000"})
+    public int n;
+
+    @Param({"1", "5", "1000"})
+    public int t;
+
+    @Param({"SEQUENTIAL", "PARALLEL", "TILED"})
+    public String mode;
+
+    private Problem problem;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        List<List<Point>> subProblems = new ArrayList<>(t);
+        int maxCoordinate = 0;
+        List<Point> worstFalse = shape == Shape.WORST_FALSE ? shape.points(n, random) : null;
+        for (int i = 0; i < t; i++) {
+            List<Point> points = worstFalse != null ? worstFalse : shape.points(n, random);
+            for (Point p : points) {
+                maxCoordinate = Math.max(maxCoordinate, Math.max(p.getX(), p.getY()));
+            }
+            subProblems.add(points);
+        }
+        ProblemLimits defaults = ProblemLimits.DEFAULT;
+        ProblemLimits limits = t <= defaults.getMaxSubProblems() && n <= defaults.getMaxPoints()
+                && maxCoordinate <= defaults.getMaxCoordinate()
+                ? defaults
+                : new ProblemLimits(1, Math.max(t, defaults.getMaxSubProblems()), 1, Math.max(n, defaults.getMaxPoints()),
+                0, Math.max(maxCoordinate, defaults.getMaxCoordinate()));
+        problem = new Problem(subProblems, limits);
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<String> solve() {
+        switch (mode) {
+            case "PARALLEL":
+                return problem.solveParallel(pool);
+            case "TILED":
+                return problem.solveTiled(pool);
+            default:
+                return problem.solve();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.stanc.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.stanc.Problem;
+import org.stanc.utils.ResultType;
+import org.stanc.utils.TestDataProvider;
+import org.stanc.utils.TestItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves every valid Problem of one TestDataProvider category per operation, so the categories the unit tests are
+ * built on can be compared with each other. Items expecting an exception are left out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TestDataBenchmark {
+
+    @Param({"EQUIVALENCE_PARTITIONING", "BOUNDARY_ANALYSIS", "CATEGORY_PARTITIONING", "STATEMENT_COVERAGE",
+            "DECISION_COVERAGE", "CONDITIONAL_COVERAGE", "INDEPENDENT_CIRCUITS", "MUTATION_COVERAGE"})
+    public String category;
+
+    private List<Problem> problems;
+
+    @Setup
+    public void setUp() {
+        TestDataProvider provider = new TestDataProvider();
+        List<TestItem> items;
+        switch (category) {
+            case "EQUIVALENCE_PARTITIONING":
+                items = provider.getEquivalencePartitioningTestData();
+                break;
+            case "BOUNDARY_ANALYSIS":
+                items = provider.getBoundaryAnalysisTestData();
+                break;
+            case "CATEGORY_PARTITIONING":
+                items = provider.getCategoryPartitioningTestData();
+                break;
+            case "STATEMENT_COVERAGE":
+                items = provider.getStatementCoverageTests();
+                break;
+            case "DECISION_COVERAGE":
+                items = provider.getDecisionCoverageTests();
+                break;
+            case "CONDITIONAL_COVERAGE":
+                items = provider.getConditionalCoverageTests();
+                break;
+            case "INDEPENDENT_CIRCUITS":
+                items = provider.getIndependentCircuitTests();
+                break;
+            case "MUTATION_COVERAGE":
+                items = provider.getMutationCoverageTests();
+                break;
+            default:
+                throw new IllegalArgumentException(category);
+        }
+        problems = new ArrayList<>();
+        for (TestItem item : items) {
+            if (item.getResult().getResultType() == ResultType.VALUE) {
+                problems.add(item.getProblem());
+            }
+        }
+    }
+
+    @Benchmark
+    public void solveCategory(Blackhole blackhole) {
+        for (Problem problem : problems) {
+            blackhole.consume(problem.solve());
+        }
+    }
+}